@@ -0,0 +1,80 @@
+package org.valross.constantine.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.valross.constantine.Array;
+
+import java.lang.constant.Constable;
+import java.util.concurrent.TimeUnit;
+
+/// [Array] operations over a range of sizes.
+///
+/// The containment index and hash code of an array are computed once and cached,
+/// so `contains` and `hashCodeCached` measure the cached path, while `hashCodeFresh` includes construction.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 2, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+public class ArrayBenchmark {
+
+    @Param({"1", "10", "100", "1000", "10000", "100000", "1000000"})
+    public int size;
+
+    private Constable[] values;
+    private Array array, copy;
+    private Integer present, absent;
+
+    @Setup
+    public void setup() {
+        this.values = new Constable[size];
+        for (int i = 0; i < size; i++) values[i] = i; // distinct boxes above the Integer cache
+        this.array = new Array(values);
+        this.copy = new Array(values.clone());
+        this.present = size / 2;
+        this.absent = -1;
+        array.contains(present); // build the index outside the measurement
+    }
+
+    @Benchmark
+    public Array construct() {
+        return new Array(values);
+    }
+
+    @Benchmark
+    public void iterate(Blackhole blackhole) {
+        for (Constable value : array) blackhole.consume(value);
+    }
+
+    @Benchmark
+    public void forEach(Blackhole blackhole) {
+        array.forEach(blackhole::consume);
+    }
+
+    @Benchmark
+    public boolean containsPresent() {
+        return array.contains(present);
+    }
+
+    @Benchmark
+    public boolean containsAbsent() {
+        return array.contains(absent);
+    }
+
+    @Benchmark
+    public boolean equalTo() {
+        return array.equals(copy);
+    }
+
+    @Benchmark
+    public int hashCodeCached() {
+        return array.hashCode();
+    }
+
+    @Benchmark
+    public int hashCodeFresh() {
+        return new Array(values).hashCode();
+    }
+
+}
@@ -0,0 +1,30 @@
+package org.valross.constantine.benchmarks;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/// Runs the benchmarks with allocation profiling, writing the results as JSON
+/// to `constantine-<version>.json` so runs of different versions can be compared.
+///
+/// Any standard JMH command line options can be given, e.g. a benchmark pattern or `-p size=1000`.
+public final class Benchmarks {
+
+    private Benchmarks() {
+    }
+
+    public static void main(String... args) throws Exception {
+        final String version = Benchmarks.class.getPackage().getImplementationVersion();
+        final Options options = new OptionsBuilder()
+            .parent(new CommandLineOptions(args))
+            .addProfiler(GCProfiler.class)
+            .resultFormat(ResultFormatType.JSON)
+            .result("constantine-" + (version != null ? version : "snapshot") + ".json")
+            .build();
+        new Runner(options).run();
+    }
+
+}
@@ -0,0 +1,143 @@
+package org.valross.constantine.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.valross.constantine.Array;
+import org.valross.constantine.Canonical;
+import org.valross.constantine.Constant;
+import org.valross.constantine.ConstantVisitor;
+import org.valross.constantine.IntArray;
+import org.valross.constantine.RecordConstant;
+
+import java.lang.constant.Constable;
+import java.lang.constant.ConstantDesc;
+import java.lang.invoke.MethodHandles;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/// Deconstructing, describing, validating and re-building (via each bootstrap method) single constants.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 2, jvmArgsAppend = {"-Xms1g", "-Xmx1g"})
+public class ConstantBenchmark {
+
+    private final MethodHandles.Lookup lookup = MethodHandles.lookup();
+    private Point point;
+    private Colour colour;
+    private Array array;
+    private IntArray numbers;
+    private ConstantDesc pointDesc, colourDesc, arrayDesc, numbersDesc;
+
+    @Setup
+    public void setup() {
+        this.point = new Point(3, 4, "origin");
+        this.colour = new Colour("red").intern();
+        this.array = new Array("a", 1, 2.5, point);
+        this.numbers = new IntArray(1, 2, 3, 4, 5, 6, 7, 8);
+        this.pointDesc = point.describeConstable().orElseThrow();
+        this.colourDesc = colour.describeConstable().orElseThrow();
+        this.arrayDesc = array.describeConstable().orElseThrow();
+        this.numbersDesc = numbers.describeConstable().orElseThrow();
+    }
+
+    @Benchmark
+    public Constable[] serial() throws Throwable {
+        return point.serial();
+    }
+
+    @Benchmark
+    public void walk(Blackhole blackhole) {
+        ConstantVisitor.walk(point, new ConstantVisitor() {
+            @Override
+            public void visitInt(int value) {
+                blackhole.consume(value);
+            }
+
+            @Override
+            public void visitString(String value) {
+                blackhole.consume(value);
+            }
+        });
+    }
+
+    @Benchmark
+    public Object describe() {
+        return point.describeConstable();
+    }
+
+    @Benchmark
+    public Object describeCanonical() {
+        return colour.describeConstable();
+    }
+
+    @Benchmark
+    public Object describeArray() {
+        return array.describeConstable();
+    }
+
+    @Benchmark
+    public Object describePacked() {
+        return numbers.describeConstable();
+    }
+
+    @Benchmark
+    public Object resolve() throws ReflectiveOperationException {
+        return pointDesc.resolveConstantDesc(lookup);
+    }
+
+    @Benchmark
+    public Object resolveCanonical() throws ReflectiveOperationException {
+        return colourDesc.resolveConstantDesc(lookup);
+    }
+
+    @Benchmark
+    public Object resolveArray() throws ReflectiveOperationException {
+        return arrayDesc.resolveConstantDesc(lookup);
+    }
+
+    @Benchmark
+    public Object resolvePacked() throws ReflectiveOperationException {
+        return numbersDesc.resolveConstantDesc(lookup);
+    }
+
+    @Benchmark
+    public boolean isConstant() {
+        return Constant.isConstant(Point.class);
+    }
+
+    @Benchmark
+    public boolean validate() {
+        return point.validate();
+    }
+
+    public record Point(int x, int y, String name) implements RecordConstant {}
+
+    public record Colour(String name) implements Canonical<Colour>, RecordConstant {
+
+        private static final Canonical.Pool<Colour> POOL = new Canonical.Pool<>();
+
+        public static Colour valueOf(String name) {
+            return new Colour(name).intern();
+        }
+
+        @Override
+        public Colour intern() {
+            return POOL.intern(this);
+        }
+
+        @Override
+        public boolean validate() {
+            return Canonical.super.validate();
+        }
+
+        @Override
+        public Optional<? extends ConstantDesc> describeConstable() {
+            return Canonical.super.describeConstable();
+        }
+
+    }
+
+}
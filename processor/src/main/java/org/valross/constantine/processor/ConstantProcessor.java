@@ -0,0 +1,238 @@
+package org.valross.constantine.processor;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.*;
+import javax.lang.model.type.ArrayType;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.lang.model.util.Elements;
+import javax.lang.model.util.Types;
+import javax.tools.Diagnostic;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.*;
+
+/// Processes types annotated with `org.valross.constantine.ConstantType`.
+///
+/// For each annotated type, this checks (at compile time) the rules that `Constant.isConstant` checks at runtime,
+/// finds the canonical constructor and generates a companion (`<BinaryName>_Companion`)
+/// implementing `serial()` and `canonicalParameters()` with direct calls.
+///
+/// For records, the components are read through their accessors.
+/// For other classes, the canonical constructor is the one whose parameters all match
+/// (by name and type) accessible fields of the class, which are read directly.
+@SupportedAnnotationTypes(ConstantProcessor.CONSTANT_TYPE)
+public final class ConstantProcessor extends AbstractProcessor {
+
+    static final String CONSTANT_TYPE = "org.valross.constantine.ConstantType";
+    static final String CONSTANT = "org.valross.constantine.Constant";
+    static final String COMPANION = "org.valross.constantine.Companion";
+    static final String CONSTABLE = "java.lang.constant.Constable";
+    /// The JDK's skeletal collections, which a constant may extend (as at runtime).
+    static final Set<String> COLLECTION_BASES = Set.of("java.util.AbstractCollection", "java.util.AbstractList",
+        "java.util.AbstractSet", "java.util.AbstractMap");
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment round) {
+        for (TypeElement annotation : annotations) {
+            for (Element element : round.getElementsAnnotatedWith(annotation)) {
+                if (!(element instanceof TypeElement type)
+                    || (element.getKind() != ElementKind.CLASS && element.getKind() != ElementKind.RECORD)) {
+                    this.error(element, "Only classes and records can be constant types");
+                    continue;
+                }
+                this.process(type);
+            }
+        }
+        return true;
+    }
+
+    private void process(TypeElement type) {
+        final Elements elements = processingEnv.getElementUtils();
+        final TypeElement constant = elements.getTypeElement(CONSTANT);
+        if (constant == null) {
+            this.error(type, "Constantine is not on the class path");
+            return;
+        }
+        if (!this.isAssignable(type.asType(), constant)) {
+            this.error(type, "Constant type does not implement " + CONSTANT);
+            return;
+        }
+        if (type.getModifiers().contains(Modifier.ABSTRACT)) {
+            this.error(type, "Constant type cannot be abstract");
+            return;
+        }
+        for (Element enclosing = type; enclosing instanceof TypeElement; enclosing = enclosing.getEnclosingElement()) {
+            final boolean local = ((TypeElement) enclosing).getNestingKind().isNested()
+                && ((TypeElement) enclosing).getNestingKind() != NestingKind.MEMBER;
+            final boolean inner = enclosing.getKind() == ElementKind.CLASS
+                && enclosing.getEnclosingElement() instanceof TypeElement
+                && !enclosing.getModifiers().contains(Modifier.STATIC);
+            if (local || inner || enclosing.getModifiers().contains(Modifier.PRIVATE)) {
+                this.error(type, "Constant type must be accessible from its package (not private, local or inner)");
+                return;
+            }
+        }
+        final String problem = this.check(type.asType(), constant);
+        if (problem != null) {
+            this.error(type, problem);
+            return;
+        }
+        final List<Component> components = type.getKind() == ElementKind.RECORD
+            ? this.recordComponents(type) : this.fieldComponents(type);
+        if (components == null) {
+            this.error(type, "No canonical constructor: a constructor whose parameters all match fields by name and type"
+                + " (a no-argument constructor only if the type has no public final fields)");
+            return;
+        }
+        try {
+            this.generate(type, components);
+        } catch (IOException ex) {
+            this.error(type, "Unable to write companion: " + ex.getMessage());
+        }
+    }
+
+    /// Walks every type reachable from this one, as the runtime validation would.
+    ///
+    /// @return the reason this type is not constant, or null if it is
+    private String check(TypeMirror root, TypeElement constant) {
+        final Types types = processingEnv.getTypeUtils();
+        final Set<String> visited = new HashSet<>();
+        final Deque<TypeMirror> pending = new ArrayDeque<>();
+        pending.add(root);
+        while (!pending.isEmpty()) {
+            final TypeMirror type = types.erasure(pending.poll());
+            if (!visited.add(type.toString())) continue;
+            if (type.getKind().isPrimitive()) continue;
+            if (type instanceof ArrayType array) {
+                pending.add(array.getComponentType());
+                continue;
+            }
+            if (!(type instanceof DeclaredType declared)) return "Not a constant type: " + type;
+            final TypeElement element = (TypeElement) declared.asElement();
+            if (this.isJavaConstant(element)) continue;
+            if (!this.isAssignable(type, constant)) return "Not a constant type: " + element.getQualifiedName();
+            for (VariableElement field : ElementFilter.fieldsIn(element.getEnclosedElements())) {
+                final Set<Modifier> modifiers = field.getModifiers();
+                if (!modifiers.contains(Modifier.PUBLIC)) continue;
+                if (modifiers.contains(Modifier.STATIC) || modifiers.contains(Modifier.TRANSIENT)) continue;
+                if (!modifiers.contains(Modifier.FINAL))
+                    return "Non-final field: " + element.getQualifiedName() + "." + field.getSimpleName();
+                pending.add(field.asType());
+            }
+            final TypeMirror parent = element.getSuperclass();
+            if (parent.getKind() == TypeKind.DECLARED && !parent.toString().equals("java.lang.Object")
+                && !COLLECTION_BASES.contains(types.erasure(parent).toString())) pending.add(parent);
+        }
+        return null;
+    }
+
+    private boolean isJavaConstant(TypeElement element) {
+        if (element.getKind() == ElementKind.ENUM) return true;
+        final String name = element.getQualifiedName().toString();
+        if (name.equals("java.lang.Record")) return true;
+        final TypeElement constable = processingEnv.getElementUtils().getTypeElement(CONSTABLE);
+        return name.startsWith("java.") && this.isAssignable(element.asType(), constable);
+    }
+
+    private List<Component> recordComponents(TypeElement type) {
+        final List<Component> components = new ArrayList<>();
+        for (RecordComponentElement component : type.getRecordComponents())
+            components.add(new Component(component.asType(), "value." + component.getAccessor().getSimpleName() + "()"));
+        return components;
+    }
+
+    private List<Component> fieldComponents(TypeElement type) {
+        final Types types = processingEnv.getTypeUtils();
+        final Map<String, VariableElement> fields = new HashMap<>();
+        boolean state = false;
+        for (Element member : processingEnv.getElementUtils().getAllMembers(type)) {
+            if (!(member instanceof VariableElement field) || member.getKind() != ElementKind.FIELD) continue;
+            final Set<Modifier> modifiers = field.getModifiers();
+            if (modifiers.contains(Modifier.STATIC) || modifiers.contains(Modifier.PRIVATE)) continue;
+            fields.putIfAbsent(field.getSimpleName().toString(), field);
+            state |= modifiers.contains(Modifier.PUBLIC) && modifiers.contains(Modifier.FINAL);
+        }
+        List<Component> best = null;
+        for (ExecutableElement constructor : ElementFilter.constructorsIn(type.getEnclosedElements())) {
+            if (constructor.getModifiers().contains(Modifier.PRIVATE)) continue;
+            final List<Component> components = new ArrayList<>();
+            for (VariableElement parameter : constructor.getParameters()) {
+                final VariableElement field = fields.get(parameter.getSimpleName().toString());
+                if (field == null || !types.isSameType(types.erasure(field.asType()), types.erasure(parameter.asType())))
+                    break;
+                components.add(new Component(parameter.asType(), "value." + field.getSimpleName()));
+            }
+            if (components.size() != constructor.getParameters().size()) continue;
+            if (best == null || components.size() > best.size()) best = components;
+        }
+        // a no-argument constructor would drop the state, so it is only canonical for stateless types
+        if (best != null && best.isEmpty() && state) return null;
+        return best;
+    }
+
+    private void generate(TypeElement type, List<Component> components) throws IOException {
+        final Elements elements = processingEnv.getElementUtils();
+        final Types types = processingEnv.getTypeUtils();
+        final String packageName = elements.getPackageOf(type).getQualifiedName().toString();
+        final String binaryName = elements.getBinaryName(type).toString();
+        final String companion = binaryName.substring(packageName.isEmpty() ? 0 : packageName.length() + 1)
+            + "_Companion";
+        final String target = types.erasure(type.asType()).toString();
+        final StringBuilder serial = new StringBuilder(), parameters = new StringBuilder();
+        for (Component component : components) {
+            if (!serial.isEmpty()) {
+                serial.append(", ");
+                parameters.append(", ");
+            }
+            final TypeMirror erased = types.erasure(component.type());
+            if (erased.getKind() == TypeKind.ARRAY)
+                serial.append(COMPANION).append(".constable(").append(component.expression()).append(')');
+            else serial.append(component.expression());
+            parameters.append(erased).append(".class");
+        }
+        final String name = packageName.isEmpty() ? companion : packageName + "." + companion;
+        try (Writer writer = processingEnv.getFiler().createSourceFile(name, type).openWriter()) {
+            if (!packageName.isEmpty()) writer.write("package " + packageName + ";\n\n");
+            writer.write("""
+                @javax.annotation.processing.Generated("%s")
+                public final class %s implements %s<%s> {
+
+                    @Override
+                    public %s[] serial(%s value) {
+                        return new %s[] {%s};
+                    }
+
+                    @Override
+                    public Class<?>[] canonicalParameters() {
+                        return new Class<?>[] {%s};
+                    }
+
+                }
+                """.formatted(ConstantProcessor.class.getName(), companion, COMPANION, target, CONSTABLE, target,
+                CONSTABLE, serial, parameters));
+        }
+    }
+
+    private boolean isAssignable(TypeMirror type, TypeElement target) {
+        final Types types = processingEnv.getTypeUtils();
+        return types.isAssignable(types.erasure(type), types.erasure(target.asType()));
+    }
+
+    private void error(Element element, String message) {
+        processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, message, element);
+    }
+
+    private record Component(TypeMirror type, String expression) {}
+
+}
@@ -0,0 +1,198 @@
+package org.valross.constantine.processor;
+
+import org.junit.Test;
+import org.valross.constantine.Companion;
+import org.valross.constantine.Constant;
+
+import javax.tools.*;
+import java.io.IOException;
+import java.lang.constant.Constable;
+import java.lang.invoke.MethodHandles;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+public class ConstantProcessorTest {
+
+    private static Result compile(Map<String, String> sources) throws IOException {
+        final Path directory = Files.createTempDirectory("constantine");
+        final List<Path> files = new ArrayList<>();
+        for (Map.Entry<String, String> entry : sources.entrySet()) {
+            final Path file = directory.resolve(entry.getKey());
+            Files.writeString(file, entry.getValue());
+            files.add(file);
+        }
+        final JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        final DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+        try (StandardJavaFileManager manager = compiler.getStandardFileManager(diagnostics, null, null)) {
+            final String classPath = Path.of(Constant.class.getProtectionDomain().getCodeSource().getLocation()
+                .getPath()).toString();
+            final List<String> options = List.of("-d", directory.toString(), "-s", directory.toString(),
+                "-classpath", classPath);
+            final JavaCompiler.CompilationTask task = compiler.getTask(null, manager, diagnostics, options, null,
+                manager.getJavaFileObjectsFromPaths(files));
+            task.setProcessors(List.of(new ConstantProcessor()));
+            final boolean success = task.call();
+            return new Result(success, directory, diagnostics.getDiagnostics());
+        }
+    }
+
+    @Test
+    public void record() throws Throwable {
+        final Result result = compile(Map.of("Day.java", """
+            package test;
+
+            @org.valross.constantine.ConstantType
+            public record Day(String name, int number, String[] tags) implements org.valross.constantine.RecordConstant {
+            }
+            """));
+        assert result.success() : result.diagnostics();
+        assert Files.exists(result.directory().resolve("test/Day_Companion.java"));
+        try (URLClassLoader loader = new URLClassLoader(new java.net.URL[] {result.directory().toUri().toURL()},
+            Constant.class.getClassLoader())) {
+            final Class<?> type = loader.loadClass("test.Day");
+            assert Companion.of(type) != null;
+            final Constant day = (Constant) type.getConstructors()[0].newInstance("Monday", 1, new String[] {"a"});
+            final Constable[] serial = day.serial();
+            assert serial[0].equals("Monday") && serial[1].equals(1);
+            assert serial[2] instanceof org.valross.constantine.Array array && array.size() == 1;
+            assert day.canonicalParameters()[2] == String[].class;
+            assert Constant.isConstant(type) && day.validate();
+            final Constant copy = (Constant) day.describeConstable().orElseThrow()
+                .resolveConstantDesc(MethodHandles.privateLookupIn(type, MethodHandles.lookup()));
+            assert copy != day && copy.getClass() == type;
+            assert Arrays.equals(copy.serial(), serial);
+        }
+    }
+
+    @Test
+    public void fieldClass() throws Throwable {
+        final Result result = compile(Map.of("Person.java", """
+            package test;
+
+            @org.valross.constantine.ConstantType
+            public final class Person implements org.valross.constantine.Constant {
+
+                public final String name;
+                public final int age;
+
+                public Person(String name, int age) {
+                    this.name = name;
+                    this.age = age;
+                }
+
+                public Person(String name) {
+                    this(name, 0);
+                }
+
+            }
+            """));
+        assert result.success() : result.diagnostics();
+        final String source = Files.readString(result.directory().resolve("test/Person_Companion.java"));
+        assert source.contains("value.name, value.age") : source;
+        assert source.contains("java.lang.String.class, int.class") : source;
+        try (URLClassLoader loader = new URLClassLoader(new java.net.URL[] {result.directory().toUri().toURL()},
+            Constant.class.getClassLoader())) {
+            final Class<?> type = loader.loadClass("test.Person");
+            final Constant person = (Constant) type.getConstructor(String.class, int.class).newInstance("Ada", 36);
+            assert Arrays.equals(person.serial(), new Constable[] {"Ada", 36}); // from the companion, by default
+            assert Arrays.equals(person.canonicalParameters(), new Class<?>[] {String.class, int.class});
+            final Constant copy = (Constant) person.describeConstable().orElseThrow()
+                .resolveConstantDesc(MethodHandles.privateLookupIn(type, MethodHandles.lookup()));
+            assert copy != person && Arrays.equals(copy.serial(), person.serial());
+        }
+    }
+
+    @Test
+    public void errors() throws Throwable {
+        final Result result = compile(Map.of("Bad.java", """
+            package test;
+
+            import java.lang.constant.Constable;
+
+            @org.valross.constantine.ConstantType
+            public final class Bad implements org.valross.constantine.Constant {
+
+                public Object value;
+
+                public Bad(Object value) {
+                    this.value = value;
+                }
+
+                @Override
+                public Constable[] serial() {
+                    return new Constable[0];
+                }
+
+                @Override
+                public Class<?>[] canonicalParameters() {
+                    return new Class<?>[0];
+                }
+
+            }
+            """));
+        assert !result.success();
+        assert result.diagnostics().stream()
+            .anyMatch(diagnostic -> diagnostic.getMessage(null).contains("Non-final field: test.Bad.value"));
+    }
+
+    @Test
+    public void emptyConstructor() throws Throwable {
+        final Result result = compile(Map.of("Point.java", """
+            package test;
+
+            @org.valross.constantine.ConstantType
+            public final class Point implements org.valross.constantine.Constant {
+
+                public final int x, y;
+
+                public Point() {
+                    this(0, 0);
+                }
+
+                public Point(int left, int top) {
+                    this.x = left;
+                    this.y = top;
+                }
+
+            }
+            """));
+        assert !result.success();
+        assert result.diagnostics().stream()
+            .anyMatch(diagnostic -> diagnostic.getMessage(null).contains("No canonical constructor"));
+    }
+
+    @Test
+    public void parents() throws Throwable {
+        final Result result = compile(Map.of("Bag.java", """
+            package test;
+
+            import java.lang.constant.Constable;
+
+            @org.valross.constantine.ConstantType
+            public final class Bag extends java.util.ArrayList<Object> implements org.valross.constantine.Constant {
+
+                @Override
+                public Constable[] serial() {
+                    return new Constable[0];
+                }
+
+                @Override
+                public Class<?>[] canonicalParameters() {
+                    return new Class<?>[0];
+                }
+
+            }
+            """));
+        assert !result.success();
+        assert result.diagnostics().stream()
+            .anyMatch(diagnostic -> diagnostic.getMessage(null).contains("Not a constant type: java.util.ArrayList"));
+    }
+
+    private record Result(boolean success, Path directory, List<Diagnostic<? extends JavaFileObject>> diagnostics) {}
+
+}
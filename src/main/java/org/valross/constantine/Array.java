@@ -2,28 +2,70 @@ package org.valross.constantine;
 
 import org.jetbrains.annotations.NotNull;
 
+import java.io.Serial;
 import java.lang.constant.Constable;
 import java.lang.constant.ConstantDesc;
 import java.lang.constant.DynamicConstantDesc;
 import java.util.*;
+import java.util.function.Consumer;
+import java.util.function.UnaryOperator;
 
 import static java.lang.constant.ConstantDescs.DEFAULT_NAME;
 
 /// A constant (frozen) array of effective constants.
-public record Array(Constable... serial) implements RecordConstant, Constant, Collection<Constable>, Cloneable {
+///
+/// Arrays are read-only random-access lists.
+/// [Slices][#slice(int, int)] and [concatenations][#concat(Array...)] are views that share the storage of the arrays
+/// they were made from, so no elements are copied until the view is described (or otherwise flattened).
+/// A view is equal to (and describes the same as) a plain array of the same elements.
+///
+/// Membership and position queries are answered from a hash index, which is built once (on the first query)
+/// for anything but the smallest arrays. The hash code is likewise computed once and remembered.
+public final class Array extends AbstractList<Constable> implements Constant, RandomAccess, Cloneable {
+
+    private static final int INDEX_THRESHOLD = 8;
+
+    private final Constable[] serial; // null for a concatenation
+    private final int offset, length;
+    private final Array[] parts; // the (storage-backed) parts of a concatenation
+    private final int[] starts; // the index at which each part starts
+    private transient volatile Map<Object, Integer> index;
+    private transient int hash;
+    private transient boolean hashIsZero;
+    private transient Optional<? extends ConstantDesc> description;
 
     public Array(Constable... serial) {
-        this.serial = Arrays.copyOf(serial, serial.length);
+        this(Arrays.copyOf(serial, serial.length), false);
+    }
+
+    Array(Constable[] serial, boolean ignored) {
+        this(serial, 0, serial.length);
     }
 
     public Array(Collection<? extends Constable> values) {
-        this(values.toArray(new Constable[0]));
+        this(values.toArray(new Constable[0]), false);
+    }
+
+    Array(Constable[] serial, int offset, int length) {
+        this.serial = serial;
+        this.offset = offset;
+        this.length = length;
+        this.parts = null;
+        this.starts = null;
+    }
+
+    private Array(Array[] parts, int[] starts, int length) {
+        this.serial = null;
+        this.offset = 0;
+        this.length = length;
+        this.parts = parts;
+        this.starts = starts;
     }
 
     @Override
     public Constable[] serial() {
-        final Constable[] copy = new Constable[serial.length];
-        System.arraycopy(serial, 0, copy, 0, serial.length);
+        final Constable[] copy = new Constable[length];
+        this.copyTo(copy, 0);
         return copy;
     }
 
@@ -39,34 +81,170 @@ public record Array(Constable... serial) implements RecordConstant, Constant, Co
 
     @Override
     public Optional<? extends ConstantDesc> describeConstable() {
-        final Constable[] constables = serial;
-        final ConstantDesc[] arguments = new ConstantDesc[constables.length];
-        for (int i = 0; i < arguments.length; i++) {
-            final Constable constable = constables[i];
-            if (constable instanceof ConstantDesc self) arguments[i] = self;
-            else arguments[i] = constables[i].describeConstable().orElse(null);
-        }
+        Optional<? extends ConstantDesc> description = this.description;
+        if (description == null) this.description = description = this.describe(); // racy but idempotent
+        return description;
+    }
+
+    private Optional<? extends ConstantDesc> describe() {
+        final ConstantDesc[] arguments = new ConstantDesc[length];
+        for (int i = 0; i < arguments.length; i++) arguments[i] = Utilities.describe(this.get(i));
         return Optional.of(DynamicConstantDesc.ofNamed(BOOTSTRAP_ARRAY, DEFAULT_NAME, ARRAY_DESC, arguments));
     }
 
+    @Override
+    public Constable get(int index) {
+        Objects.checkIndex(index, length);
+        if (serial != null) return serial[offset + index];
+        final int part = this.partOf(index);
+        return parts[part].get(index - starts[part]);
+    }
+
+    /// @return the part of this concatenation containing an index
+    private int partOf(int index) {
+        final int part = Arrays.binarySearch(starts, index);
+        return part >= 0 ? part : -part - 2;
+    }
+
+    /// A view of a range of this array, sharing its storage.
+    ///
+    /// @param from The first index (inclusive)
+    /// @param to   The last index (exclusive)
+    /// @return The elements in the range
+    public Array slice(int from, int to) {
+        Objects.checkFromToIndex(from, to, length);
+        if (from == 0 && to == length) return this;
+        if (serial != null) return new Array(serial, offset + from, to - from);
+        if (from == to) return new Array();
+        final int first = this.partOf(from), last = this.partOf(to - 1);
+        if (first == last) return parts[first].slice(from - starts[first], to - starts[first]);
+        final Array[] slices = new Array[last - first + 1];
+        final int[] indices = new int[slices.length];
+        for (int part = first; part <= last; part++) {
+            final int start = Math.max(from, starts[part]) - starts[part];
+            final int end = Math.min(to, starts[part] + parts[part].length) - starts[part];
+            slices[part - first] = parts[part].slice(start, end);
+            indices[part - first] = Math.max(from, starts[part]) - from;
+        }
+        return new Array(slices, indices, to - from);
+    }
+
+    @Override
+    public Array subList(int fromIndex, int toIndex) {
+        return this.slice(fromIndex, toIndex);
+    }
+
+    /// A view of this array followed by others, sharing their storage.
+    ///
+    /// @param arrays The arrays to follow this one
+    /// @return The elements of this array, then of each of the others in turn
+    public Array concat(Array... arrays) {
+        final List<Array> list = new ArrayList<>(arrays.length + 1);
+        int length = 0;
+        for (Array array : this.prepend(arrays)) {
+            if (array.isEmpty()) continue;
+            if (array.parts != null) list.addAll(Arrays.asList(array.parts));
+            else list.add(array);
+            length += array.length;
+        }
+        if (list.isEmpty()) return this;
+        if (list.size() == 1) return list.getFirst();
+        final int[] starts = new int[list.size()];
+        for (int i = 1; i < starts.length; i++) starts[i] = starts[i - 1] + list.get(i - 1).length;
+        return new Array(list.toArray(new Array[0]), starts, length);
+    }
+
+    private Array[] prepend(Array[] arrays) {
+        final Array[] all = new Array[arrays.length + 1];
+        all[0] = this;
+        System.arraycopy(arrays, 0, all, 1, arrays.length);
+        return all;
+    }
+
+    private void copyTo(Object[] target, int position) {
+        if (serial != null) System.arraycopy(serial, offset, target, position, length);
+        else for (int part = 0; part < parts.length; part++) parts[part].copyTo(target, position + starts[part]);
+    }
+
+    /// @return the elements, without copying if this is not a view
+    private Constable[] flat() {
+        if (serial != null && offset == 0 && length == serial.length) return serial;
+        return this.serial();
+    }
+
     @Override
     public int size() {
-        return serial.length;
+        return length;
     }
 
     @Override
     public boolean isEmpty() {
-        return serial.length == 0;
+        return length == 0;
     }
 
     @Override
     public boolean contains(Object o) {
-        return Set.of(serial).contains(o);
+        return this.indexOf(o) >= 0;
+    }
+
+    @Override
+    public int indexOf(Object o) {
+        if (length <= INDEX_THRESHOLD) {
+            for (int i = 0; i < length; i++) if (Objects.equals(this.get(i), o)) return i;
+            return -1;
+        }
+        final Integer index = this.index().get(o);
+        return index == null ? -1 : index;
+    }
+
+    @Override
+    public int lastIndexOf(Object o) {
+        if (length > INDEX_THRESHOLD && !this.index().containsKey(o)) return -1;
+        for (int i = length - 1; i >= 0; i--) if (Objects.equals(this.get(i), o)) return i;
+        return -1;
+    }
+
+    private Map<Object, Integer> index() {
+        Map<Object, Integer> index = this.index;
+        if (index == null) {
+            final Map<Object, Integer> positions = new HashMap<>(Math.max(16, length * 4 / 3 + 1));
+            final int[] position = {0};
+            this.forEach(constable -> positions.putIfAbsent(constable, position[0]++));
+            index = positions;
+            this.index = index; // racy but idempotent, the map is never modified after publication
+        }
+        return index;
     }
 
     @Override
     public @NotNull Iterator<Constable> iterator() {
-        return Arrays.stream(this.serial()).iterator();
+        return new Iterator<>() {
+            private int cursor;
+
+            @Override
+            public boolean hasNext() {
+                return cursor < length;
+            }
+
+            @Override
+            public Constable next() {
+                if (cursor >= length) throw new NoSuchElementException();
+                return serial != null ? serial[offset + cursor++] : Array.this.get(cursor++);
+            }
+        };
+    }
+
+    @Override
+    public Spliterator<Constable> spliterator() {
+        if (serial == null) return super.spliterator();
+        return Spliterators.spliterator(serial, offset, offset + length, Spliterator.IMMUTABLE | Spliterator.ORDERED);
+    }
+
+    @Override
+    public void forEach(Consumer<? super Constable> action) {
+        Objects.requireNonNull(action);
+        if (serial != null) for (int i = offset; i < offset + length; i++) action.accept(serial[i]);
+        else for (Array part : parts) part.forEach(action);
     }
 
     @Override
@@ -77,8 +255,9 @@ public record Array(Constable... serial) implements RecordConstant, Constant, Co
     @Override
     @SuppressWarnings("unchecked")
     public <Type> Type @NotNull [] toArray(Type... array) {
-        if (array.length < serial.length) return this.toArray((Class<Type>) array.getClass().componentType());
-        System.arraycopy(serial, 0, array, 0, serial.length);
+        if (array.length < length) return this.toArray((Class<Type>) array.getClass().componentType());
+        this.copyTo(array, 0);
+        if (array.length > length) array[length] = null;
         return array;
     }
 
@@ -94,7 +273,8 @@ public record Array(Constable... serial) implements RecordConstant, Constant, Co
 
     @Override
     public boolean containsAll(Collection<?> c) {
-        return Set.of(serial).containsAll(c);
+        for (Object o : c) if (!this.contains(o)) return false;
+        return true;
     }
 
     @Override
@@ -112,6 +292,16 @@ public record Array(Constable... serial) implements RecordConstant, Constant, Co
         throw new UnsupportedOperationException();
     }
 
+    @Override
+    public void replaceAll(UnaryOperator<Constable> operator) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void sort(Comparator<? super Constable> c) {
+        throw new UnsupportedOperationException();
+    }
+
     @Override
     public void clear() {
         throw new UnsupportedOperationException();
@@ -119,25 +309,31 @@ public record Array(Constable... serial) implements RecordConstant, Constant, Co
 
     @Override
     public Array clone() {
-        return new Array(serial);
+        return new Array(this.serial(), false);
     }
 
     @SuppressWarnings("unchecked")
     public <Type> Type[] toArray(Class<Type> type) {
-        final Type[] array = (Type[]) java.lang.reflect.Array.newInstance(type, serial.length);
-        System.arraycopy(serial, 0, array, 0, serial.length);
+        final Type[] array = (Type[]) java.lang.reflect.Array.newInstance(type, length);
+        this.copyTo(array, 0);
         return array;
     }
 
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
-        if (o instanceof Array(Constable[] other))
-            return Arrays.equals(serial, other);
+        if (o instanceof Array array) {
+            if (array.length != length) return false;
+            if (serial != null && array.serial != null)
+                return Arrays.equals(serial, offset, offset + length, array.serial, array.offset,
+                    array.offset + length);
+            for (int i = 0; i < length; i++) if (!Objects.equals(this.get(i), array.get(i))) return false;
+            return true;
+        }
         if (o instanceof Collection<?> collection) {
-            if (collection.size() != serial.length) return false;
-            Iterator<?> iterator = collection.iterator();
-            for (Constable constable : serial) {
+            if (collection.size() != length) return false;
+            final Iterator<?> iterator = collection.iterator();
+            for (Constable constable : this) {
                 assert iterator.hasNext();
                 if (!Objects.equals(iterator.next(), constable))
                     return false;
@@ -150,7 +346,27 @@ public record Array(Constable... serial) implements RecordConstant, Constant, Co
 
     @Override
     public int hashCode() {
-        return Arrays.hashCode(serial);
+        int hash = this.hash;
+        if (hash == 0 && !hashIsZero) {
+            hash = 1;
+            if (serial != null) for (int i = offset; i < offset + length; i++)
+                hash = 31 * hash + Objects.hashCode(serial[i]);
+            else for (Constable constable : this) hash = 31 * hash + Objects.hashCode(constable);
+            if (hash == 0) this.hashIsZero = true;
+            else this.hash = hash;
+        }
+        return hash;
+    }
+
+    @Override
+    public String toString() {
+        return "Array[serial=" + Arrays.toString(this.flat()) + "]";
+    }
+
+    /// Arrays are written as their elements, so views do not write (or keep) the rest of their storage.
+    @Serial
+    private Object writeReplace() {
+        return ConstantProxy.of(this);
     }
 
 }
@@ -0,0 +1,117 @@
+package org.valross.constantine;
+
+import java.lang.constant.Constable;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.stream.Collector;
+
+/// A growable buffer of elements for an [Array].
+///
+/// [Building][#constant()] the array hands the builder's buffer over to it, rather than copying it,
+/// after which the builder cannot be added to. The buffer is only trimmed (copied) if much of it is unused,
+/// so a builder created with the exact number of elements never copies them at all.
+///
+/// ```java
+/// final ArrayBuilder builder = new ArrayBuilder(rows.size());
+/// for (Row row : rows) builder.add(row.name());
+/// final Array names = builder.constant();
+/// ```
+///
+/// A builder is not thread-safe, but [#collector()] can be used to build an array from a parallel stream.
+public final class ArrayBuilder implements Constantive {
+
+    private static final int DEFAULT_CAPACITY = 10;
+
+    private Constable[] buffer;
+    private int size;
+    private Array array;
+
+    public ArrayBuilder() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /// @param capacity The number of elements expected
+    public ArrayBuilder(int capacity) {
+        if (capacity < 0) throw new IllegalArgumentException("Negative capacity: " + capacity);
+        this.buffer = new Constable[capacity];
+    }
+
+    /// Collects the elements of a stream into an array, in encounter order.
+    /// For parallel streams, each chunk is collected into its own builder and the builders are then joined.
+    ///
+    /// @return A collector of arrays
+    public static Collector<Constable, ArrayBuilder, Array> collector() {
+        return Collector.of(ArrayBuilder::new, ArrayBuilder::add, ArrayBuilder::addAll, ArrayBuilder::constant);
+    }
+
+    /// @param element The element to add (which may be null)
+    /// @return This builder
+    public ArrayBuilder add(Constable element) {
+        this.ensureCapacity(size + 1);
+        this.buffer[size++] = element;
+        return this;
+    }
+
+    /// @param elements The elements to add
+    /// @return This builder
+    public ArrayBuilder addAll(Constable... elements) {
+        return this.addAll(elements, elements.length);
+    }
+
+    /// @param elements The elements to add
+    /// @return This builder
+    public ArrayBuilder addAll(Collection<? extends Constable> elements) {
+        this.ensureCapacity(size + elements.size());
+        for (Constable element : elements) this.add(element);
+        return this;
+    }
+
+    /// Adds the elements of another builder, which is left as it was.
+    ///
+    /// @param other The builder to add the elements of
+    /// @return This builder
+    public ArrayBuilder addAll(ArrayBuilder other) {
+        if (other.buffer == null) throw new IllegalStateException("The other builder has already been built");
+        return this.addAll(other.buffer, other.size);
+    }
+
+    private ArrayBuilder addAll(Constable[] elements, int count) {
+        this.ensureCapacity(size + count);
+        System.arraycopy(elements, 0, buffer, size, count);
+        this.size += count;
+        return this;
+    }
+
+    /// @return The number of elements added so far
+    public int size() {
+        return size;
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (buffer == null) throw new IllegalStateException("This builder has already been built");
+        if (capacity < 0) throw new OutOfMemoryError("Array too large");
+        if (capacity <= buffer.length) return;
+        final int grown = buffer.length + (buffer.length >> 1) + 1;
+        this.buffer = Arrays.copyOf(buffer, grown < 0 ? capacity : Math.max(grown, capacity));
+    }
+
+    /// Builds the array, handing it this builder's buffer. Building again returns the same array.
+    ///
+    /// @return The array of every element added
+    @Override
+    public Array constant() {
+        if (array != null) return array;
+        final Constable[] buffer = this.buffer;
+        final int spare = buffer.length - size;
+        this.array = spare > size >>> 3 ? new Array(Arrays.copyOf(buffer, size), false) // trim
+            : new Array(buffer, 0, size);
+        this.buffer = null;
+        return array;
+    }
+
+    @Override
+    public String toString() {
+        return "ArrayBuilder[size=" + size + ", built=" + (buffer == null) + "]";
+    }
+
+}
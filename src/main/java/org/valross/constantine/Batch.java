@@ -0,0 +1,140 @@
+package org.valross.constantine;
+
+import java.lang.constant.*;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.Function;
+
+/// Describes or resolves batches of constants in parallel, on the common fork-join pool.
+///
+/// A batch is split into chunks (several per worker thread), and each result is written to the position of its
+/// input, so the output is in input order. A failure is recorded as the result for its element,
+/// and does not affect the rest of the batch.
+final class Batch {
+
+    private static final int MINIMUM_CHUNK = 256;
+
+    private Batch() {
+    }
+
+    static List<Constant.Result<ConstantDesc>> describe(List<? extends Constant> constants) {
+        return run(constants, constant -> {
+            try {
+                return constant.describeConstable().orElseThrow(() -> new ConstantDeconstructionError(
+                    "Not describable: " + constant));
+            } catch (ConstantError | VirtualMachineError error) {
+                throw error;
+            } catch (Throwable ex) {
+                throw new ConstantDeconstructionError(ex);
+            }
+        });
+    }
+
+    static List<Constant.Result<Object>> resolve(MethodHandles.Lookup lookup,
+                                                 List<? extends ConstantDesc> descriptions) {
+        final Resolver resolver = new Resolver(lookup);
+        return run(descriptions, description -> {
+            try {
+                return resolver.resolve(description);
+            } catch (ConstantError | VirtualMachineError error) {
+                throw error;
+            } catch (Throwable ex) {
+                throw new ConstantConstructionError(ex);
+            }
+        });
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <Input, Output> List<Constant.Result<Output>> run(List<? extends Input> inputs,
+                                                                     Function<Input, Output> function) {
+        final Object[] inputArray = inputs.toArray();
+        @SuppressWarnings("rawtypes")
+        final Constant.Result<Output>[] results = new Constant.Result[inputArray.length];
+        final int chunk = Math.max(MINIMUM_CHUNK, inputArray.length / (ForkJoinPool.getCommonPoolParallelism() * 4));
+        new Chunk<>((Input[]) inputArray, results, function, 0, inputArray.length, chunk).invoke();
+        return Collections.unmodifiableList(Arrays.asList(results));
+    }
+
+    private static final class Chunk<Input, Output> extends RecursiveAction {
+
+        private final Input[] inputs;
+        private final Constant.Result<Output>[] results;
+        private final Function<Input, Output> function;
+        private final int start, end, chunk;
+
+        Chunk(Input[] inputs, Constant.Result<Output>[] results, Function<Input, Output> function,
+              int start, int end, int chunk) {
+            this.inputs = inputs;
+            this.results = results;
+            this.function = function;
+            this.start = start;
+            this.end = end;
+            this.chunk = chunk;
+        }
+
+        @Override
+        protected void compute() {
+            if (end - start > chunk) {
+                final int middle = (start + end) >>> 1;
+                invokeAll(new Chunk<>(inputs, results, function, start, middle, chunk),
+                    new Chunk<>(inputs, results, function, middle, end, chunk));
+                return;
+            }
+            for (int i = start; i < end; i++) {
+                try {
+                    results[i] = Constant.Result.success(function.apply(inputs[i]));
+                } catch (ConstantError error) {
+                    results[i] = Constant.Result.failure(error);
+                }
+            }
+        }
+
+    }
+
+    /// Resolves descriptions like [ConstantDesc#resolveConstantDesc], but resolves each bootstrap method,
+    /// type and signature only once per batch, rather than once per use.
+    private static final class Resolver {
+
+        private final MethodHandles.Lookup lookup;
+        private final Map<ConstantDesc, Object> symbols = new ConcurrentHashMap<>();
+
+        Resolver(MethodHandles.Lookup lookup) {
+            this.lookup = lookup;
+        }
+
+        Object resolve(ConstantDesc description) throws Throwable {
+            return switch (description) {
+                case DynamicConstantDesc<?> dynamic -> {
+                    final ConstantDesc[] arguments = dynamic.bootstrapArgs();
+                    final Object[] values = new Object[arguments.length + 3];
+                    values[0] = lookup;
+                    values[1] = dynamic.constantName();
+                    values[2] = this.symbol(dynamic.constantType());
+                    for (int i = 0; i < arguments.length; i++) values[i + 3] = this.resolve(arguments[i]);
+                    yield ((MethodHandle) this.symbol(dynamic.bootstrapMethod())).invokeWithArguments(values);
+                }
+                case ClassDesc type -> this.symbol(type);
+                case MethodTypeDesc type -> this.symbol(type);
+                case MethodHandleDesc handle -> this.symbol(handle);
+                default -> description.resolveConstantDesc(lookup); // strings and numbers resolve to themselves
+            };
+        }
+
+        private Object symbol(ConstantDesc description) throws ReflectiveOperationException {
+            final Object known = symbols.get(description);
+            if (known != null) return known;
+            final Object resolved = description.resolveConstantDesc(lookup);
+            symbols.putIfAbsent(description, resolved);
+            return resolved;
+        }
+
+    }
+
+}
@@ -0,0 +1,104 @@
+package org.valross.constantine;
+
+import java.lang.constant.Constable;
+import java.lang.constant.ConstantDesc;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Optional;
+import java.util.stream.IntStream;
+
+/// A constant (frozen) array of `byte`s.
+///
+/// Unlike an [Array] of boxed values, the contents are stored unboxed.
+/// The array describes itself as a single packed payload, rather than one descriptor per element.
+public final class ByteArray implements Constant, Cloneable {
+
+    private final byte[] values;
+
+    public ByteArray(byte... values) {
+        this(Arrays.copyOf(values, values.length), false);
+    }
+
+    private ByteArray(byte[] values, boolean ignored) {
+        this.values = values;
+    }
+
+    static ByteArray decode(ByteBuffer buffer) {
+        final byte[] values = new byte[buffer.remaining()];
+        buffer.get(values);
+        return new ByteArray(values, false);
+    }
+
+    byte[] encode() {
+        return values;
+    }
+
+    @Override
+    public Constable[] serial() {
+        final Constable[] boxed = new Constable[values.length];
+        for (int i = 0; i < values.length; i++) boxed[i] = values[i];
+        return new Constable[] {new Array(boxed)};
+    }
+
+    @Override
+    public Class<?>[] canonicalParameters() {
+        return new Class[] {byte[].class};
+    }
+
+    @Override
+    public ByteArray constant() {
+        return this;
+    }
+
+    @Override
+    public Optional<? extends ConstantDesc> describeConstable() {
+        return Optional.of(Utilities.describePacked(ByteArray.class, this.encode()));
+    }
+
+    public int size() {
+        return values.length;
+    }
+
+    public boolean isEmpty() {
+        return values.length == 0;
+    }
+
+    public byte get(int index) {
+        return values[index];
+    }
+
+    public boolean contains(byte value) {
+        for (byte element : values) if (element == value) return true;
+        return false;
+    }
+
+    public IntStream stream() {
+        return IntStream.range(0, values.length).map(index -> values[index]);
+    }
+
+    public byte[] toArray() {
+        return Arrays.copyOf(values, values.length);
+    }
+
+    @Override
+    public ByteArray clone() {
+        return new ByteArray(values, false);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        return o instanceof ByteArray array && Arrays.equals(values, array.values);
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(values);
+    }
+
+    @Override
+    public String toString() {
+        return "ByteArray" + Arrays.toString(values);
+    }
+
+}
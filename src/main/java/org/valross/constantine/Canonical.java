@@ -4,9 +4,12 @@ import org.jetbrains.annotations.Contract;
 
 import java.lang.constant.ConstantDesc;
 import java.lang.constant.DynamicConstantDesc;
-import java.lang.invoke.MethodHandles;
-import java.lang.invoke.MethodType;
+import java.lang.ref.WeakReference;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.WeakHashMap;
+import java.util.concurrent.atomic.LongAdder;
 
 /// A canonical constant is one that has a universal set of unique, interned references.
 /// I.e. like [String]s, there can be a unique object for each value.
@@ -16,20 +19,14 @@ import java.util.Optional;
 /// A canonical constant class **MUST** declare a static factory method: i.e. a method for obtaining an instance
 /// (ideally the interned instance) using its constituent parts.
 ///
+/// Resolving the description of a canonical constant returns its interned instance.
+/// A [Pool] can be used to implement interning.
+///
 /// @param <Type> The extending class (self-referential)
 /// @see #factoryMethodName()
 /// @see #intern()
 public interface Canonical<Type extends Constant & Canonical<Type>> extends Constant {
 
-    private static boolean hasCanonicalFactory(Class<?> type, String name, Class<?>... parameters) {
-        try {
-            MethodHandles.lookup().findStatic(type, name, MethodType.methodType(type, parameters));
-            return true;
-        } catch (NoSuchMethodException | IllegalAccessException e) {
-            return false;
-        }
-    }
-
     /// Returns the interned canonical representation of this object.
     ///
     ///
@@ -54,17 +51,21 @@ public interface Canonical<Type extends Constant & Canonical<Type>> extends Cons
 
     @Contract(pure = true)
     default boolean validate() {
-        return Constant.isConstant(this.getClass()) &&
-            hasCanonicalFactory(this.getClass(), this.factoryMethodName(), this.canonicalParameters());
+        final Events.ValidateEvent event = Events.ValidateEvent.start();
+        final Verdict verdict = Verdict.of(this.getClass());
+        return event.finish(this.getClass(), verdict.isConstant()
+            && verdict.hasCanonicalFactory(this.factoryMethodName(), this.canonicalParameters()));
     }
 
     @Override
     default Optional<? extends ConstantDesc> describeConstable() {
-        assert this.validate(); // test only, make sure this is actually what it pretends to be
-        final ConstantDesc[] arguments = Utilities.getArguments(this);
-        return Optional.of(DynamicConstantDesc.ofNamed(BOOTSTRAP_CANON, this.factoryMethodName(),
-            Constant.describe(this.getClass()),
-            arguments));
+        return DescriptionCache.describe(this, constant -> {
+            assert constant.validate(); // test only, make sure this is actually what it pretends to be
+            final ConstantDesc[] arguments = Utilities.getArguments(constant);
+            return Optional.of(DynamicConstantDesc.ofNamed(BOOTSTRAP_CANON, constant.factoryMethodName(),
+                Constant.describe(constant.getClass()),
+                arguments));
+        });
     }
 
     /// The name of the **PUBLIC, STATIC** method in the declaring class which produces an instance of the object.
@@ -81,4 +82,90 @@ public interface Canonical<Type extends Constant & Canonical<Type>> extends Cons
         return "valueOf";
     }
 
+    /// A concurrent pool of interned canonical instances, suitable for backing [#intern()].
+    ///
+    /// The pool is split into independently-locked stripes, so threads interning unrelated values
+    /// rarely contend. Entries are held weakly: once nothing else refers to an interned instance,
+    /// it can be collected, and a later equal value will become the new interned instance.
+    ///
+    /// A pool may be given a maximum size. Once a pool is full, values that are not already in it are
+    /// returned as they are, without being interned. This limits memory use at the cost of the identity
+    /// guarantee for those values, so bounds should be generous.
+    ///
+    /// ```java
+    /// private static final Canonical.Pool<Colour> POOL = new Canonical.Pool<>();
+    ///
+    /// public Colour intern() {
+    ///     return POOL.intern(this);
+    /// }
+    /// ```
+    ///
+    /// @param <Type> The canonical type
+    final class Pool<Type> {
+
+        private static final int STRIPES = 16;
+
+        private final Map<Type, WeakReference<Type>>[] stripes;
+        private final int stripeLimit;
+        private final LongAdder hits = new LongAdder(), misses = new LongAdder();
+
+        public Pool() {
+            this(0);
+        }
+
+        /// @param maximumSize The (approximate) maximum number of interned values, or 0 for no limit
+        @SuppressWarnings("unchecked")
+        public Pool(int maximumSize) {
+            if (maximumSize < 0) throw new IllegalArgumentException("Negative maximum size: " + maximumSize);
+            this.stripes = new Map[STRIPES];
+            for (int i = 0; i < STRIPES; i++) stripes[i] = new WeakHashMap<>();
+            this.stripeLimit = maximumSize == 0 ? Integer.MAX_VALUE : Math.ceilDiv(maximumSize, STRIPES);
+        }
+
+        /// Returns the pooled instance equal to this value, adding the value if there is none.
+        ///
+        /// @param value The value to intern
+        /// @return The interned instance
+        public Type intern(Type value) {
+            Objects.requireNonNull(value);
+            final int hash = value.hashCode();
+            final Map<Type, WeakReference<Type>> stripe = stripes[(hash ^ (hash >>> 16)) & (STRIPES - 1)];
+            synchronized (stripe) {
+                final WeakReference<Type> reference = stripe.get(value);
+                final Type interned = reference == null ? null : reference.get();
+                if (interned != null) {
+                    this.hits.increment();
+                    Events.interned(value, true);
+                    return interned;
+                }
+                this.misses.increment();
+                Events.interned(value, false);
+                if (stripe.size() < stripeLimit) stripe.put(value, new WeakReference<>(value));
+                return value;
+            }
+        }
+
+        /// @return The number of values currently interned (including any not yet cleared after collection)
+        public int size() {
+            int size = 0;
+            for (Map<Type, WeakReference<Type>> stripe : stripes) {
+                synchronized (stripe) {
+                    size += stripe.size();
+                }
+            }
+            return size;
+        }
+
+        /// @return The number of times an existing instance was returned
+        public long hits() {
+            return hits.sum();
+        }
+
+        /// @return The number of times a value had no existing instance
+        public long misses() {
+            return misses.sum();
+        }
+
+    }
+
 }
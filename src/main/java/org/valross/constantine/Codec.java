@@ -0,0 +1,45 @@
+package org.valross.constantine;
+
+/// The tags and shared limits of the binary constant format,
+/// as written by [ConstantWriter] and read by [ConstantReader].
+///
+/// Every value starts with a one-byte tag. Integral values are written as (zig-zag) varints,
+/// floating point values as their raw big-endian bits, and strings as a varint length followed by UTF-8.
+///
+/// The first time a constant type appears in a stream, its definition (kind, class name, factory name
+/// and canonical signature) is written inline; after that it is referred to by index.
+/// Strings and constants are numbered in the order they are started, and a repeated (equal) value
+/// is written as a back-reference to that number rather than in full.
+final class Codec {
+
+    static final byte NULL = 0, TRUE = 1, FALSE = 2, INT = 3, LONG = 4, FLOAT = 5, DOUBLE = 6, CHAR = 7,
+        SHORT = 8, BYTE = 9, STRING = 10, ENUM = 11, ARRAY = 12, PACKED = 13, CONSTANT = 14, REFERENCE = 15;
+
+    static final byte PACKED_INT = 0, PACKED_LONG = 1, PACKED_DOUBLE = 2, PACKED_BYTE = 3;
+
+    static final byte KIND_CONSTRUCTOR = 0, KIND_FACTORY = 1, KIND_ENUM = 2;
+
+    /// Arrays with at least this many elements are never back-referenced,
+    /// so that a reader can stream them without keeping them.
+    static final int STREAMING_THRESHOLD = 1024;
+
+    private Codec() {
+    }
+
+    /// Compares values for back-referencing: equal values of the same class are interchangeable.
+    record Reference(Object value) {
+
+        @Override
+        public boolean equals(Object object) {
+            return object instanceof Reference(Object other) && other.getClass() == value.getClass()
+                && other.equals(value);
+        }
+
+        @Override
+        public int hashCode() {
+            return value.hashCode();
+        }
+
+    }
+
+}
@@ -0,0 +1,48 @@
+package org.valross.constantine;
+
+import java.lang.constant.Constable;
+
+/// A generated helper that deconstructs a [ConstantType]-annotated constant type without reflection.
+/// Companions are found by name (the binary name of the constant type, plus `_Companion`)
+/// and must have a public no-argument constructor.
+///
+/// @param <Type> The constant type
+/// @see ConstantType
+public interface Companion<Type> {
+
+    /// Wraps a component value as a constable, converting arrays into their constant form.
+    /// This is used by generated companions.
+    ///
+    /// @param value The component value
+    /// @return The constable form of the value
+    static Constable constable(Object value) {
+        return switch (value) {
+            case null -> null;
+            case Constable constable -> constable;
+            case Constable[] array -> new Array(array);
+            case int[] array -> new IntArray(array);
+            case long[] array -> new LongArray(array);
+            case double[] array -> new DoubleArray(array);
+            case byte[] array -> new ByteArray(array);
+            default -> throw new ConstantDeconstructionError("Not a constant value: " + value.getClass());
+        };
+    }
+
+    /// Finds the generated companion for a type, if there is one.
+    ///
+    /// @param type The constant type
+    /// @return The companion, or null if the type has none
+    static Companion<?> of(Class<?> type) {
+        return Utilities.companion(type);
+    }
+
+    /// @param value The constant to deconstruct
+    /// @return The serial of the constant
+    /// @see Constant#serial()
+    Constable[] serial(Type value);
+
+    /// @return The canonical parameters of the constant type
+    /// @see Constant#canonicalParameters()
+    Class<?>[] canonicalParameters();
+
+}
@@ -7,9 +7,9 @@ import java.lang.constant.*;
 import java.lang.invoke.MethodHandle;
 import java.lang.invoke.MethodHandles;
 import java.lang.invoke.MethodType;
-import java.lang.reflect.Field;
-import java.lang.reflect.Modifier;
-import java.util.Optional;
+import java.nio.ByteBuffer;
+import java.util.*;
+import java.util.stream.Stream;
 
 import static java.lang.constant.ConstantDescs.DEFAULT_NAME;
 
@@ -21,77 +21,79 @@ public interface Constant extends Constable, Constantive, Serializable, Cloneabl
 
     ClassDesc CONSTANT_DESC = describe(Constant.class);
     ClassDesc ARRAY_DESC = describe(Array.class);
-    DirectMethodHandleDesc BOOTSTRAP_MAKE = ConstantDescs.ofConstantBootstrap(CONSTANT_DESC, "bootstrap",
-        CONSTANT_DESC, describe(Object[].class));
-    DirectMethodHandleDesc BOOTSTRAP_CANON = ConstantDescs.ofConstantBootstrap(CONSTANT_DESC, "bootstrapCanonical",
-        CONSTANT_DESC, describe(Object[].class));
-    DirectMethodHandleDesc BOOTSTRAP_ARRAY = ConstantDescs.ofConstantBootstrap(CONSTANT_DESC, "bootstrapArray",
-        ARRAY_DESC, describe(Object[].class));
-
-    static boolean isConstant(Class<?> type) {
-        if (isJavaConstant(type)) return true;
-        if (type.isArray()) return isConstant(type.getComponentType());
-        if (!Constant.class.isAssignableFrom(type)) return false;
-        for (Field field : type.getFields()) {
-            final int modifiers = field.getModifiers();
-            if (Modifier.isStatic(modifiers)) continue;
-            if (Modifier.isTransient(modifiers)) continue;
-            if ((modifiers & 0x00001000) != 0) continue;
-            if (!Modifier.isFinal(modifiers)) return false;
-            if (!isConstant(field.getType())) return false;
-        }
-        final Class<?> parent = type.getSuperclass();
-        return parent == null || parent == Object.class || isConstant(parent);
+    ClassDesc MAP_DESC = describe(ConstantMap.class);
+    ClassDesc SET_DESC = describe(ConstantSet.class);
+    DirectMethodHandleDesc BOOTSTRAP_MAKE = bootstrapMethod("bootstrap", CONSTANT_DESC);
+    DirectMethodHandleDesc BOOTSTRAP_CANON = bootstrapMethod("bootstrapCanonical", CONSTANT_DESC);
+    DirectMethodHandleDesc BOOTSTRAP_ARRAY = bootstrapMethod("bootstrapArray", ARRAY_DESC);
+    DirectMethodHandleDesc BOOTSTRAP_PACKED = bootstrapMethod("bootstrapPacked", CONSTANT_DESC);
+    DirectMethodHandleDesc BOOTSTRAP_MAP = bootstrapMethod("bootstrapMap", MAP_DESC);
+    DirectMethodHandleDesc BOOTSTRAP_SET = bootstrapMethod("bootstrapSet", SET_DESC);
+
+    /// Constant bootstraps are static methods on this interface, so their handles must be interface-static
+    /// (rather than the plain static handles from [ConstantDescs#ofConstantBootstrap]) to be used in class files.
+    private static DirectMethodHandleDesc bootstrapMethod(String name, ClassDesc returnType) {
+        return MethodHandleDesc.ofMethod(DirectMethodHandleDesc.Kind.INTERFACE_STATIC, CONSTANT_DESC, name,
+            MethodTypeDesc.of(returnType, ConstantDescs.CD_MethodHandles_Lookup, ConstantDescs.CD_String,
+                ConstantDescs.CD_Class, describe(Object[].class)));
     }
 
-    private static boolean hasCanonicalConstructor(Class<?> type, Class<?>... parameters) {
-        try {
-            MethodHandles.privateLookupIn(type, MethodHandles.lookup()).findConstructor(type, MethodType.methodType(void.class, parameters));
-            return true;
-        } catch (NoSuchMethodException | IllegalAccessException e) {
-            return false;
-        }
+    static boolean isConstant(Class<?> type) {
+        return Verdict.of(type).isConstant();
     }
 
     private static boolean isSuperConstant(Class<?> type) {
         return type.isPrimitive() || Constable.class.isAssignableFrom(type);
     }
 
-    private static boolean isJavaConstant(Class<?> type) {
-        return type.isPrimitive() || type.isEnum() || type == Record.class || (Constable.class.isAssignableFrom(type) && type.getPackageName()
-            .startsWith("java."));
-    }
-
     static ClassDesc describe(Class<?> type) {
         return ClassDesc.ofDescriptor(type.descriptorString());
     }
 
     static Constant bootstrap(MethodHandles.Lookup lookup, String ignored, Class<?> type, Object... serial)
     throws Throwable {
+        final Events.BootstrapEvent event = Events.BootstrapEvent.start();
         final MethodType signature = (MethodType) serial[0];
-        final Object[] arguments = new Object[serial.length - 1];
-        System.arraycopy(serial, 1, arguments, 0, serial.length - 1);
-        final MethodHandle constructor = lookup.findConstructor(type, signature).asFixedArity();
-        Utilities.unwrapArray(arguments, signature);
-        return (Constant) constructor.invokeWithArguments(arguments);
+        final MethodHandle constructor = Utilities.factory(lookup, type, null, signature);
+        final Object result = (Object) constructor.invokeExact(serial);
+        return event.finish(type, "constructor", (Constant) result);
     }
 
     static Constant bootstrapCanonical(MethodHandles.Lookup lookup, String name, Class<?> type, Object... serial)
     throws Throwable {
-        MethodType signature = (MethodType) serial[0];
-        signature = signature.changeReturnType(type);
-        final Object[] arguments = new Object[serial.length - 1];
-        System.arraycopy(serial, 1, arguments, 0, serial.length - 1);
-        final MethodHandle constructor = lookup.findStatic(type, name, signature).asFixedArity();
-        Utilities.unwrapArray(arguments, signature);
-        return (Constant) constructor.invokeWithArguments(arguments);
+        final Events.BootstrapEvent event = Events.BootstrapEvent.start();
+        final MethodType signature = ((MethodType) serial[0]).changeReturnType(type);
+        final MethodHandle factory = Utilities.factory(lookup, type, name, signature);
+        final Object result = (Object) factory.invokeExact(serial);
+        if (result instanceof Canonical<?> canonical) return event.finish(type, "canonical", canonical.intern());
+        return event.finish(type, "canonical", (Constant) result);
     }
 
-    static Array bootstrapArray(MethodHandles.Lookup lookup, String ignored, Class<?> type, Object... serial)
-    throws Throwable {
-        final MethodHandle constructor = lookup.findConstructor(type, MethodType.methodType(void.class,
-            Constable[].class));
-        return (Array) constructor.invokeWithArguments(serial);
+    static Array bootstrapArray(MethodHandles.Lookup lookup, String ignored, Class<?> type, Object... serial) {
+        final Events.BootstrapEvent event = Events.BootstrapEvent.start();
+        return event.finish(type, "array", new Array(Arrays.copyOf(serial, serial.length, Constable[].class), false));
+    }
+
+    static ConstantMap<?, ?> bootstrapMap(MethodHandles.Lookup lookup, String ignored, Class<?> type,
+                                          Object... entries) {
+        final Events.BootstrapEvent event = Events.BootstrapEvent.start();
+        return event.finish(type, "map", ConstantMap.of(entries));
+    }
+
+    static ConstantSet<?> bootstrapSet(MethodHandles.Lookup lookup, String ignored, Class<?> type,
+                                       Object... elements) {
+        final Events.BootstrapEvent event = Events.BootstrapEvent.start();
+        return event.finish(type, "set", ConstantSet.of(elements));
+    }
+
+    static Constant bootstrapPacked(MethodHandles.Lookup lookup, String ignored, Class<?> type, Object... chunks) {
+        final Events.BootstrapEvent event = Events.BootstrapEvent.start();
+        final ByteBuffer buffer = Utilities.unpack(chunks);
+        if (type == IntArray.class) return event.finish(type, "packed", IntArray.decode(buffer));
+        if (type == LongArray.class) return event.finish(type, "packed", LongArray.decode(buffer));
+        if (type == DoubleArray.class) return event.finish(type, "packed", DoubleArray.decode(buffer));
+        if (type == ByteArray.class) return event.finish(type, "packed", ByteArray.decode(buffer));
+        throw new ConstantConstructionError("Not a packed array type: " + type);
     }
 
     static Constant fromConstable(Constable constable) {
@@ -112,28 +114,92 @@ public interface Constant extends Constable, Constantive, Serializable, Cloneabl
         return new ConstantWrapper(constable);
     }
 
+    /// Describes a batch of constants in parallel.
+    /// A constant that cannot be described does not stop the rest of the batch from being described.
+    ///
+    /// @param constants The constants to describe
+    /// @return The result for each constant, in the same order
+    static List<Result<ConstantDesc>> describeAll(Collection<? extends Constant> constants) {
+        return Batch.describe(new ArrayList<>(constants));
+    }
+
+    /// Describes a batch of constants in parallel.
+    ///
+    /// @param constants The constants to describe
+    /// @return The result for each constant, in the same order
+    /// @see #describeAll(Collection)
+    static List<Result<ConstantDesc>> describeAll(Stream<? extends Constant> constants) {
+        return Batch.describe(constants.toList());
+    }
+
+    /// Resolves a batch of descriptions in parallel.
+    /// Each bootstrap method, type and signature is resolved only once for the whole batch,
+    /// and a description that cannot be resolved does not stop the rest of the batch from being resolved.
+    ///
+    /// @param lookup       The lookup to resolve descriptions with
+    /// @param descriptions The descriptions to resolve
+    /// @return The result for each description, in the same order
+    static List<Result<Object>> resolveAll(MethodHandles.Lookup lookup,
+                                           Collection<? extends ConstantDesc> descriptions) {
+        return Batch.resolve(lookup, new ArrayList<>(descriptions));
+    }
+
+    /// Resolves a batch of descriptions in parallel.
+    ///
+    /// @param lookup       The lookup to resolve descriptions with
+    /// @param descriptions The descriptions to resolve
+    /// @return The result for each description, in the same order
+    /// @see #resolveAll(MethodHandles.Lookup, Collection)
+    static List<Result<Object>> resolveAll(MethodHandles.Lookup lookup, Stream<? extends ConstantDesc> descriptions) {
+        return Batch.resolve(lookup, descriptions.toList());
+    }
+
     @Contract(pure = true)
     default boolean validate() {
-        boolean constant = isConstant(this.getClass());
-        assert constant : "Not a constant type: " + this.getClass();
-        boolean hasCanonicalConstructor = hasCanonicalConstructor(this.getClass(), this.canonicalParameters());
+        final Events.ValidateEvent event = Events.ValidateEvent.start();
+        final Verdict verdict = Verdict.of(this.getClass());
+        boolean constant = verdict.isConstant();
+        assert constant : verdict.reason();
+        boolean hasCanonicalConstructor = verdict.hasCanonicalConstructor(this.canonicalParameters());
         assert hasCanonicalConstructor : "Missing canonical constructor: " + this.getClass();
         //noinspection ConstantValue
-        return constant && hasCanonicalConstructor;
+        return event.finish(this.getClass(), constant && hasCanonicalConstructor);
     }
 
+    /// By default, a constant is deconstructed by its generated [Companion], if it has one.
+    ///
+    /// @return The parts of this constant, in the order of its canonical parameters
+    /// @throws ConstantDeconstructionError if this type neither has a companion nor overrides this
     @Contract(pure = true)
-    Constable[] serial() throws Throwable;
+    @SuppressWarnings("unchecked")
+    default Constable[] serial() throws Throwable {
+        final Companion<Constant> companion = (Companion<Constant>) Utilities.companion(this.getClass());
+        if (companion == null) throw new ConstantDeconstructionError("No serial for " + this.getClass().getName());
+        return companion.serial(this);
+    }
 
+    /// By default, these are given by the type's generated [Companion], if it has one.
+    ///
+    /// @return The parameter types of this type's canonical constructor (or factory)
+    /// @throws ConstantDeconstructionError if this type neither has a companion nor overrides this
     @Contract(pure = true)
-    Class<?>[] canonicalParameters();
+    default Class<?>[] canonicalParameters() {
+        final Companion<?> companion = Utilities.companion(this.getClass());
+        if (companion == null)
+            throw new ConstantDeconstructionError("No canonical parameters for " + this.getClass().getName());
+        return companion.canonicalParameters();
+    }
 
+    /// Describes this constant by its serial.
+    /// The description is remembered, so each instance is described (and validated) only once.
     default @Override Optional<? extends ConstantDesc> describeConstable() {
-        assert this.validate() : this; // test only, make sure this is actually what it pretends to be
-        final ConstantDesc[] arguments = Utilities.getArguments(this);
-        return Optional.of(
-            DynamicConstantDesc.ofNamed(BOOTSTRAP_MAKE, DEFAULT_NAME, describe(this.getClass()), arguments)
-        );
+        return DescriptionCache.describe(this, constant -> {
+            assert constant.validate() : constant; // test only, make sure this is actually what it pretends to be
+            final ConstantDesc[] arguments = Utilities.getArguments(constant);
+            return Optional.of(
+                DynamicConstantDesc.ofNamed(BOOTSTRAP_MAKE, DEFAULT_NAME, describe(constant.getClass()), arguments)
+            );
+        });
     }
 
     @Contract(pure = true)
@@ -141,6 +207,35 @@ public interface Constant extends Constable, Constantive, Serializable, Cloneabl
         return this;
     }
 
+    /// The result of describing or resolving one element of a batch: either a value or the error that prevented it.
+    ///
+    /// @param value The value, if there was no error
+    /// @param error The error, or null if there was none
+    /// @param <Type> The type of value
+    record Result<Type>(Type value, ConstantError error) {
+
+        static <Type> Result<Type> success(Type value) {
+            return new Result<>(value, null);
+        }
+
+        static <Type> Result<Type> failure(ConstantError error) {
+            return new Result<>(null, error);
+        }
+
+        /// @return Whether there was no error
+        public boolean isSuccess() {
+            return error == null;
+        }
+
+        /// @return The value
+        /// @throws ConstantError if there was an error
+        public Type get() {
+            if (error != null) throw error;
+            return value;
+        }
+
+    }
+
     /// A constant interface for a unit type: a type that allows only one value and holds no information.
     /// This would be a class with no possible constructor arguments and only constant fields.
     interface UnitConstant extends Constant {
@@ -0,0 +1,301 @@
+package org.valross.constantine;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.constant.*;
+import java.lang.invoke.MethodHandles;
+import java.util.*;
+
+/// A set of named constants that can be emitted as a class file.
+///
+/// The emitted (holder) class has one `public static` accessor per constant, which loads its description
+/// with a single `ldc` instruction. Constants described by a [DynamicConstantDesc] (which includes every [Constant])
+/// become dynamic constant pool entries, resolved through their bootstrap method the first time the accessor runs
+/// and never again, so the JIT can treat them as true constants.
+/// Only constants that are actually used are ever built.
+///
+/// Descriptions (or parts of descriptions) shared between constants are written to the constant pool once,
+/// so shared sub-constants are also resolved only once.
+///
+/// ```java
+/// final ConstantBundle bundle = new ConstantBundle("com.example.Days");
+/// bundle.add("tuesday", new Day("Tuesday"));
+/// final byte[] bytes = bundle.toByteArray(); // Days.tuesday() returns the Day
+/// ```
+///
+/// Bootstrap methods resolve with the holder class's lookup, so constant types (and their canonical constructors)
+/// must be accessible from the holder's package.
+/// The class file format limits a constant to 65535 bootstrap arguments (e.g. array elements) and a string
+/// to 65535 bytes of modified UTF-8; larger constants can't be bundled, and throw a [ConstantDeconstructionError].
+public final class ConstantBundle {
+
+    private static final int VERSION = 61; // Java 17, any version supporting dynamic constants will do
+    private static final byte UTF8 = 1, INTEGER = 3, FLOAT = 4, LONG = 5, DOUBLE = 6, CLASS = 7, STRING = 8,
+        FIELD = 9, METHOD = 10, INTERFACE_METHOD = 11, NAME_AND_TYPE = 12, METHOD_HANDLE = 15, METHOD_TYPE = 16,
+        DYNAMIC = 17;
+
+    private final String className;
+    private final Map<String, ConstantDesc> constants = new LinkedHashMap<>();
+
+    /// @param className The binary name of the holder class, e.g. `com.example.Days`
+    public ConstantBundle(String className) {
+        if (className.isEmpty() || className.contains("/")) throw new IllegalArgumentException(className);
+        this.className = className;
+    }
+
+    /// Adds a constant, to be loaded by an accessor method of the same name.
+    ///
+    /// @param name  The accessor name
+    /// @param value The constant (or any describable value)
+    /// @return this bundle
+    public ConstantBundle add(String name, Constable value) {
+        final ConstantDesc desc = value instanceof ConstantDesc self ? self
+            : value.describeConstable().orElseThrow(() -> new ConstantDeconstructionError("Not describable: " + value));
+        return this.addDescription(name, desc);
+    }
+
+    /// Adds a constant description, to be loaded by an accessor method of the same name.
+    ///
+    /// @param name The accessor name
+    /// @param desc The description
+    /// @return this bundle
+    public ConstantBundle addDescription(String name, ConstantDesc desc) {
+        if (name.isEmpty() || name.equals("<init>") || name.equals("<clinit>")
+            || name.chars().anyMatch(c -> ".;[/<>".indexOf(c) >= 0))
+            throw new IllegalArgumentException("Invalid accessor name: " + name);
+        if (constants.putIfAbsent(name, Objects.requireNonNull(desc)) != null)
+            throw new IllegalArgumentException("Duplicate accessor name: " + name);
+        return this;
+    }
+
+    /// Defines the holder class, which must be in the same package as the lookup class.
+    ///
+    /// @param lookup A lookup with package access
+    /// @return The holder class
+    public Class<?> define(MethodHandles.Lookup lookup) throws IllegalAccessException {
+        return lookup.defineClass(this.toByteArray());
+    }
+
+    /// @return The holder class file
+    public byte[] toByteArray() {
+        try {
+            return new Emitter().emit();
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    private static String internalName(ClassDesc type) {
+        final String descriptor = type.descriptorString();
+        return type.isArray() ? descriptor : descriptor.substring(1, descriptor.length() - 1);
+    }
+
+    /// Builds the constant pool (deduplicating every entry) and then the class around it.
+    private final class Emitter {
+
+        private final ByteArrayOutputStream poolBytes = new ByteArrayOutputStream();
+        private final DataOutputStream pool = new DataOutputStream(poolBytes);
+        private final Map<List<Object>, Integer> entries = new HashMap<>();
+        private final Map<List<Integer>, Integer> bootstraps = new LinkedHashMap<>();
+        private int count = 1;
+
+        byte[] emit() throws IOException {
+            final ByteArrayOutputStream methodBytes = new ByteArrayOutputStream();
+            final DataOutputStream methods = new DataOutputStream(methodBytes);
+            if (constants.size() > 0xFFFF) throw new ConstantDeconstructionError("Too many accessors for one class file");
+            final int code = this.utf8("Code");
+            for (Map.Entry<String, ConstantDesc> entry : constants.entrySet()) {
+                final ConstantDesc desc = entry.getValue();
+                final String type = this.typeOf(desc);
+                final int index = this.constant(desc);
+                final boolean wide = type.equals("J") || type.equals("D");
+                methods.writeShort(0x0009); // public static
+                methods.writeShort(this.utf8(entry.getKey()));
+                methods.writeShort(this.utf8("()" + type));
+                methods.writeShort(1);
+                methods.writeShort(code);
+                methods.writeInt(2 + 2 + 4 + 4 + 2 + 2);
+                methods.writeShort(wide ? 2 : 1); // max stack
+                methods.writeShort(0); // max locals
+                methods.writeInt(4);
+                methods.writeByte(wide ? 0x14 : 0x13); // ldc2_w / ldc_w
+                methods.writeShort(index);
+                methods.writeByte(switch (type.charAt(0)) {
+                    case 'Z', 'B', 'C', 'S', 'I' -> 0xAC; // ireturn
+                    case 'J' -> 0xAD; // lreturn
+                    case 'F' -> 0xAE; // freturn
+                    case 'D' -> 0xAF; // dreturn
+                    default -> 0xB0; // areturn
+                });
+                methods.writeShort(0); // exception table
+                methods.writeShort(0); // attributes
+            }
+            final int thisClass = this.classEntry(className.replace('.', '/'));
+            final int superClass = this.classEntry("java/lang/Object");
+            final int bootstrapName = bootstraps.isEmpty() ? 0 : this.utf8("BootstrapMethods");
+            final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            final DataOutputStream output = new DataOutputStream(bytes);
+            output.writeInt(0xCAFEBABE);
+            output.writeShort(0);
+            output.writeShort(VERSION);
+            output.writeShort(count);
+            poolBytes.writeTo(output);
+            output.writeShort(0x0031); // public final super
+            output.writeShort(thisClass);
+            output.writeShort(superClass);
+            output.writeShort(0); // interfaces
+            output.writeShort(0); // fields
+            output.writeShort(constants.size());
+            methodBytes.writeTo(output);
+            if (bootstraps.isEmpty()) output.writeShort(0);
+            else {
+                output.writeShort(1);
+                output.writeShort(bootstrapName);
+                int length = 2;
+                for (List<Integer> bootstrap : bootstraps.keySet()) length += 2 * bootstrap.size() + 2;
+                output.writeInt(length);
+                output.writeShort(bootstraps.size());
+                for (List<Integer> bootstrap : bootstraps.keySet()) {
+                    output.writeShort(bootstrap.getFirst());
+                    output.writeShort(bootstrap.size() - 1);
+                    for (int i = 1; i < bootstrap.size(); i++) output.writeShort(bootstrap.get(i));
+                }
+            }
+            return bytes.toByteArray();
+        }
+
+        private String typeOf(ConstantDesc desc) {
+            return switch (desc) {
+                case DynamicConstantDesc<?> dynamic -> dynamic.constantType().descriptorString();
+                case String ignored -> "Ljava/lang/String;";
+                case Integer ignored -> "I";
+                case Long ignored -> "J";
+                case Float ignored -> "F";
+                case Double ignored -> "D";
+                case ClassDesc ignored -> "Ljava/lang/Class;";
+                case MethodTypeDesc ignored -> "Ljava/lang/invoke/MethodType;";
+                case MethodHandleDesc ignored -> "Ljava/lang/invoke/MethodHandle;";
+            };
+        }
+
+        private int constant(ConstantDesc desc) throws IOException {
+            return switch (desc) {
+                case DynamicConstantDesc<?> dynamic -> this.dynamic(dynamic);
+                case String string -> this.entry(List.of(STRING, string), () -> {
+                    final int value = this.utf8(string);
+                    return () -> pool.writeShort(value);
+                });
+                case Integer number -> this.entry(List.of(INTEGER, number), () -> () -> pool.writeInt(number));
+                case Long number -> this.entry(List.of(LONG, number), () -> () -> pool.writeLong(number));
+                case Float number -> this.entry(List.of(FLOAT, Float.floatToRawIntBits(number)),
+                    () -> () -> pool.writeFloat(number));
+                case Double number -> this.entry(List.of(DOUBLE, Double.doubleToRawLongBits(number)),
+                    () -> () -> pool.writeDouble(number));
+                case ClassDesc type when type.isPrimitive() -> this.dynamic(DynamicConstantDesc.ofNamed(
+                    ConstantDescs.BSM_PRIMITIVE_CLASS, type.descriptorString(), ConstantDescs.CD_Class));
+                case ClassDesc type -> this.classEntry(internalName(type));
+                case MethodTypeDesc type -> this.entry(List.of(METHOD_TYPE, type.descriptorString()), () -> {
+                    final int value = this.utf8(type.descriptorString());
+                    return () -> pool.writeShort(value);
+                });
+                case DirectMethodHandleDesc handle -> this.methodHandle(handle);
+                case MethodHandleDesc handle -> throw new ConstantDeconstructionError("Unsupported handle: " + handle);
+            };
+        }
+
+        private int dynamic(DynamicConstantDesc<?> dynamic) throws IOException {
+            final List<Integer> bootstrap = new ArrayList<>();
+            bootstrap.add(this.methodHandle(dynamic.bootstrapMethod()));
+            if (dynamic.bootstrapArgsList().size() > 0xFFFF)
+                throw new ConstantDeconstructionError("Too many bootstrap arguments for one constant: " + dynamic);
+            for (ConstantDesc argument : dynamic.bootstrapArgsList()) bootstrap.add(this.constant(argument));
+            Integer index = bootstraps.get(bootstrap);
+            if (index == null) {
+                if (bootstraps.size() == 0xFFFF)
+                    throw new ConstantDeconstructionError("Too many bootstrap methods for one class file");
+                bootstraps.put(bootstrap, index = bootstraps.size());
+            }
+            final int method = index;
+            final int nameAndType = this.nameAndType(dynamic.constantName(), dynamic.constantType().descriptorString());
+            return this.entry(List.of(DYNAMIC, method, nameAndType), () -> () -> {
+                pool.writeShort(method);
+                pool.writeShort(nameAndType);
+            });
+        }
+
+        private int methodHandle(DirectMethodHandleDesc handle) throws IOException {
+            final byte tag = switch (handle.kind()) {
+                case GETTER, SETTER, STATIC_GETTER, STATIC_SETTER -> FIELD;
+                default -> handle.isOwnerInterface() ? INTERFACE_METHOD : METHOD;
+            };
+            final int owner = this.classEntry(internalName(handle.owner()));
+            final int nameAndType = this.nameAndType(handle.methodName(), handle.lookupDescriptor());
+            final int reference = this.entry(List.of(tag, owner, nameAndType), () -> () -> {
+                pool.writeShort(owner);
+                pool.writeShort(nameAndType);
+            });
+            return this.entry(List.of(METHOD_HANDLE, handle.refKind(), reference), () -> () -> {
+                pool.writeByte(handle.refKind());
+                pool.writeShort(reference);
+            });
+        }
+
+        private int nameAndType(String name, String descriptor) throws IOException {
+            final int nameIndex = this.utf8(name), typeIndex = this.utf8(descriptor);
+            return this.entry(List.of(NAME_AND_TYPE, nameIndex, typeIndex), () -> () -> {
+                pool.writeShort(nameIndex);
+                pool.writeShort(typeIndex);
+            });
+        }
+
+        private int classEntry(String internalName) throws IOException {
+            final int name = this.utf8(internalName);
+            return this.entry(List.of(CLASS, name), () -> () -> pool.writeShort(name));
+        }
+
+        private int utf8(String string) throws IOException {
+            long length = string.length(); // modified UTF-8, as written by writeUTF
+            for (int i = 0; i < string.length() && length <= 0xFFFF; i++) {
+                final char c = string.charAt(i);
+                if (c == 0 || c > 0x7F) length += c > 0x7FF ? 2 : 1;
+            }
+            if (length > 0xFFFF) throw new ConstantDeconstructionError("String too long for one class file: "
+                + string.substring(0, 32) + "...");
+            return this.entry(List.of(UTF8, string), () -> () -> pool.writeUTF(string));
+        }
+
+        /// Finds an existing pool entry by key, or writes a new one.
+        /// Entries that it depends on are created first (by the preparer), so that the entry's own bytes are contiguous.
+        private int entry(List<Object> key, Preparer preparer) throws IOException {
+            final Integer existing = entries.get(key);
+            if (existing != null) return existing;
+            final Body body = preparer.prepare();
+            final int index = count;
+            final byte tag = (byte) key.getFirst();
+            pool.writeByte(tag);
+            body.write();
+            this.count += tag == LONG || tag == DOUBLE ? 2 : 1;
+            if (count > 0xFFFF) throw new ConstantDeconstructionError("Too many constants for one class file");
+            this.entries.put(key, index);
+            return index;
+        }
+
+    }
+
+    @FunctionalInterface
+    private interface Preparer {
+
+        Body prepare() throws IOException;
+
+    }
+
+    @FunctionalInterface
+    private interface Body {
+
+        void write() throws IOException;
+
+    }
+
+}
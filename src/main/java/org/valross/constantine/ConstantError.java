@@ -4,6 +4,8 @@ import java.lang.constant.Constable;
 
 /// An error related to the validation,
 /// disassembly, or re-creation of a constant value.
+///
+/// The library's own errors are recorded (see [Metrics]) once fully constructed.
 public abstract class ConstantError extends Error {
 
     protected Class<? extends Constable> cause;
@@ -35,57 +37,67 @@ public abstract class ConstantError extends Error {
 
 }
 
-class ConstantConstructionError extends ConstantError {
+final class ConstantConstructionError extends ConstantError {
 
     public ConstantConstructionError(Class<? extends Constable> cause) {
         super(cause);
+        Events.error(this);
     }
 
     public ConstantConstructionError() {
         super();
+        Events.error(this);
     }
 
     public ConstantConstructionError(String message) {
         super(message);
+        Events.error(this);
     }
 
     public ConstantConstructionError(String message, Throwable cause) {
         super(message, cause);
+        Events.error(this);
     }
 
     public ConstantConstructionError(Throwable cause) {
         super(cause);
         if (cause instanceof ConstantError error)
             this.cause = error.cause;
+        Events.error(this);
     }
 
 }
 
-class ConstantDeconstructionError extends ConstantError {
+final class ConstantDeconstructionError extends ConstantError {
 
     Class<?> target;
 
     public ConstantDeconstructionError(Class<? extends Constable> cause, Class<?> target) {
         super(cause);
         this.target = target;
+        Events.error(this);
     }
 
     public ConstantDeconstructionError() {
         super();
+        Events.error(this);
     }
 
     public ConstantDeconstructionError(String message) {
         super(message);
+        Events.error(this);
     }
 
     public ConstantDeconstructionError(String message, Throwable cause) {
         super(message, cause);
+        Events.error(this);
     }
 
     public ConstantDeconstructionError(Throwable cause) {
         super(cause);
         if (cause instanceof ConstantDeconstructionError error)
             this.target = error.target;
+        Events.error(this);
     }
 
     public Class<?> getTarget() {
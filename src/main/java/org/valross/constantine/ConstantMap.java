@@ -0,0 +1,208 @@
+package org.valross.constantine;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.io.Serial;
+import java.lang.constant.Constable;
+import java.lang.constant.ConstantDesc;
+import java.lang.constant.DynamicConstantDesc;
+import java.util.*;
+import java.util.function.BiConsumer;
+
+import static java.lang.constant.ConstantDescs.DEFAULT_NAME;
+
+/// A constant (frozen) map of constant keys to constant values.
+///
+/// Maps are persistent: [#with(Constable, Constable)] and [#without(Object)] derive a new map in `O(log n)`,
+/// sharing all but the changed path of the underlying hash array mapped trie with the original.
+/// Lookups are likewise `O(log n)`, and in practice a handful of steps.
+///
+/// Keys and values cannot be null. The iteration order is unspecified.
+///
+/// @param <Key>   The type of key
+/// @param <Value> The type of value
+public final class ConstantMap<Key extends Constable, Value extends Constable> extends AbstractMap<Key, Value>
+    implements Constant {
+
+    private static final ConstantMap<?, ?> EMPTY = new ConstantMap<>(HashTrie.EMPTY);
+
+    private final HashTrie trie;
+    private transient Set<Entry<Key, Value>> entries;
+    private transient int hash;
+    private transient boolean hashIsZero;
+    private transient Optional<? extends ConstantDesc> description;
+
+    private ConstantMap(HashTrie trie) {
+        this.trie = trie;
+    }
+
+    /// The canonical constructor, from alternating keys and values.
+    ConstantMap(Constable[] entries) {
+        this(HashTrie.of(entries, true));
+    }
+
+    @SuppressWarnings("unchecked")
+    public static <Key extends Constable, Value extends Constable> ConstantMap<Key, Value> of() {
+        return (ConstantMap<Key, Value>) EMPTY;
+    }
+
+    @SuppressWarnings("unchecked")
+    public static <Key extends Constable, Value extends Constable> ConstantMap<Key, Value> of(
+        Map<? extends Key, ? extends Value> map) {
+        if (map instanceof ConstantMap<?, ?> constant) return (ConstantMap<Key, Value>) constant;
+        HashTrie trie = HashTrie.EMPTY;
+        for (Entry<? extends Key, ? extends Value> entry : map.entrySet())
+            trie = trie.with(entry.getKey(), entry.getValue());
+        return new ConstantMap<>(trie);
+    }
+
+    static ConstantMap<?, ?> of(Object[] entries) {
+        return new ConstantMap<>(HashTrie.of(entries, true));
+    }
+
+    /// @return a map with this key mapped to this value, and the same entries as this one otherwise
+    public ConstantMap<Key, Value> with(Key key, Value value) {
+        final HashTrie trie = this.trie.with(key, value);
+        return trie == this.trie ? this : new ConstantMap<>(trie);
+    }
+
+    /// @return a map without this key, and the same entries as this one otherwise
+    public ConstantMap<Key, Value> without(Object key) {
+        final HashTrie trie = this.trie.without(key);
+        return trie == this.trie ? this : new ConstantMap<>(trie);
+    }
+
+    @Override
+    public Constable[] serial() {
+        final Constable[] entries = new Constable[trie.size() * 2];
+        final int[] index = {0};
+        trie.forEach((key, value) -> {
+            entries[index[0]++] = (Constable) key;
+            entries[index[0]++] = (Constable) value;
+        });
+        return new Constable[] {new Array(entries, false)};
+    }
+
+    @Override
+    public Class<?>[] canonicalParameters() {
+        return new Class[] {Constable[].class};
+    }
+
+    @Override
+    public ConstantMap<Key, Value> constant() {
+        return this;
+    }
+
+    @Override
+    public Optional<? extends ConstantDesc> describeConstable() {
+        Optional<? extends ConstantDesc> description = this.description;
+        if (description == null) this.description = description = this.describe(); // racy but idempotent
+        return description;
+    }
+
+    private Optional<? extends ConstantDesc> describe() {
+        final ConstantDesc[] arguments = new ConstantDesc[trie.size() * 2];
+        final int[] index = {0};
+        trie.forEach((key, value) -> {
+            arguments[index[0]++] = Utilities.describe((Constable) key);
+            arguments[index[0]++] = Utilities.describe((Constable) value);
+        });
+        return Optional.of(DynamicConstantDesc.ofNamed(BOOTSTRAP_MAP, DEFAULT_NAME, MAP_DESC, arguments));
+    }
+
+    @Override
+    public int size() {
+        return trie.size();
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return trie.size() == 0;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public Value get(Object key) {
+        return (Value) trie.get(key);
+    }
+
+    @Override
+    public Value getOrDefault(Object key, Value defaultValue) {
+        final Value value = this.get(key);
+        return value == null ? defaultValue : value;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return trie.containsKey(key);
+    }
+
+    @Override
+    public @NotNull Set<Entry<Key, Value>> entrySet() {
+        Set<Entry<Key, Value>> entries = this.entries;
+        if (entries == null) this.entries = entries = new AbstractSet<>() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public @NotNull Iterator<Entry<Key, Value>> iterator() {
+                return trie.iterator((key, value) -> new SimpleImmutableEntry<>((Key) key, (Value) value));
+            }
+
+            @Override
+            public int size() {
+                return trie.size();
+            }
+
+            @Override
+            public boolean contains(Object o) {
+                return o instanceof Entry<?, ?> entry && entry.getValue() != null
+                    && entry.getValue().equals(trie.get(entry.getKey()));
+            }
+        };
+        return entries;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public void forEach(BiConsumer<? super Key, ? super Value> action) {
+        Objects.requireNonNull(action);
+        trie.forEach((key, value) -> action.accept((Key) key, (Value) value));
+    }
+
+    @Override
+    public Value put(Key key, Value value) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public Value remove(Object key) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void putAll(@NotNull Map<? extends Key, ? extends Value> m) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void clear() {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public int hashCode() {
+        int hash = this.hash;
+        if (hash == 0 && !hashIsZero) {
+            hash = super.hashCode();
+            if (hash == 0) this.hashIsZero = true;
+            else this.hash = hash;
+        }
+        return hash;
+    }
+
+    /// Written as its entries, rather than its trie.
+    @Serial
+    private Object writeReplace() {
+        return ConstantProxy.of(this);
+    }
+
+}
@@ -0,0 +1,93 @@
+package org.valross.constantine;
+
+import java.io.*;
+import java.lang.constant.Constable;
+
+/// A compact serial form for constants under Java serialization.
+///
+/// Rather than its fields, a proxied constant is written as its type and the parts of its serial
+/// (with its canonical parameters only if they cannot be found from the type, as they can for records,
+/// arrays, maps, sets and types with a companion). When read, the constant is rebuilt through its canonical constructor
+/// (or factory), and a [Canonical] constant is replaced by its interned instance.
+///
+/// Java serialization only looks for `writeReplace` on the class itself, so each constant type opts in with:
+///
+/// ```java
+/// @Serial
+/// private Object writeReplace() {
+///     return ConstantProxy.of(this);
+/// }
+/// ```
+///
+/// [Array], [ConstantMap] and [ConstantSet] are always written this way.
+/// Parts are written as themselves, so a part shared within a stream is still written once.
+public final class ConstantProxy implements Externalizable {
+
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    private Class<?> type;
+    private String factoryName;
+    private Class<?>[] parameters;
+    private Constable[] parts;
+
+    /// For serialization only: use [#of(Constant)].
+    public ConstantProxy() {
+    }
+
+    private ConstantProxy(Constant constant) {
+        this.type = constant.getClass();
+        this.parts = Utilities.serial(constant);
+        if (constant instanceof Canonical<?> canonical) this.factoryName = canonical.factoryMethodName();
+        if (type != Array.class && Utilities.knownParameters(type) == null) this.parameters = constant.canonicalParameters();
+    }
+
+    /// @param constant The constant to write
+    /// @return The object to write in its place
+    public static Object of(Constant constant) {
+        return new ConstantProxy(constant);
+    }
+
+    @Override
+    public void writeExternal(ObjectOutput out) throws IOException {
+        out.writeObject(type);
+        out.writeObject(factoryName);
+        out.writeObject(parameters);
+        out.writeInt(parts.length);
+        for (Constable part : parts) out.writeObject(part);
+    }
+
+    @Override
+    public void readExternal(ObjectInput in) throws IOException, ClassNotFoundException {
+        this.type = (Class<?>) in.readObject();
+        if (!Constant.class.isAssignableFrom(type)) throw new InvalidObjectException("Not a constant: " + type);
+        this.factoryName = (String) in.readObject();
+        this.parameters = (Class<?>[]) in.readObject();
+        final int length = in.readInt();
+        if (length < 0) throw new InvalidObjectException("Negative length: " + length);
+        this.parts = new Constable[length];
+        for (int i = 0; i < length; i++) parts[i] = (Constable) in.readObject();
+    }
+
+    /// The stream only chooses which constant to rebuild, never how: the factory name is only taken for a
+    /// [Canonical] type, parameters that can be found from the type are taken from it, and the type must be
+    /// constant and have the canonical constructor (or factory) named by the stream.
+    @Serial
+    private Object readResolve() throws ObjectStreamException {
+        if (type == Array.class) return new Array(parts, false);
+        final String factoryName = Canonical.class.isAssignableFrom(type) ? this.factoryName : null;
+        final Class<?>[] known = Utilities.knownParameters(type), parameters = known != null ? known : this.parameters;
+        final String refusal = Verdict.of(type).refusal(factoryName, parameters);
+        if (refusal != null) throw new InvalidObjectException(refusal);
+        final Object constant;
+        try {
+            constant = Utilities.rebuild(type, factoryName, parameters, parts);
+        } catch (ConstantError error) {
+            final InvalidObjectException exception = new InvalidObjectException(error.getMessage());
+            exception.initCause(error);
+            throw exception;
+        }
+        return constant instanceof Canonical<?> canonical ? canonical.intern() : constant;
+    }
+
+}
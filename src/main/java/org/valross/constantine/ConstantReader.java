@@ -0,0 +1,364 @@
+package org.valross.constantine;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.lang.constant.Constable;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.function.Consumer;
+
+/// Reads values written by a [ConstantWriter].
+///
+/// Constants are rebuilt through their canonical constructor (or, for [Canonical] types,
+/// their factory method, returning the interned instance), using the same cached handles as the bootstrap methods.
+///
+/// A reader can take its data from a [ReadableByteChannel] (through an internal buffer)
+/// or directly from a [ByteBuffer]. Large arrays can be [streamed][#readArray(Consumer)]
+/// rather than read in full.
+///
+/// @see Codec
+public final class ConstantReader {
+
+    private final ReadableByteChannel channel;
+    private final ByteBuffer buffer;
+    private final ClassLoader loader;
+    private final List<Type> types;
+    private final boolean inlineTypes;
+    private static final Object PENDING = new Object();
+
+    private final List<Object> references = new ArrayList<>();
+
+    public ConstantReader(ReadableByteChannel channel) {
+        this(channel, 8192, ConstantReader.class.getClassLoader());
+    }
+
+    public ConstantReader(ReadableByteChannel channel, int bufferSize, ClassLoader loader) {
+        if (bufferSize < 16) throw new IllegalArgumentException("Buffer too small: " + bufferSize);
+        this.channel = channel;
+        this.buffer = ByteBuffer.allocate(bufferSize).flip();
+        this.loader = loader;
+        this.types = new ArrayList<>();
+        this.inlineTypes = true;
+    }
+
+    public ConstantReader(ByteBuffer buffer) {
+        this(buffer, ConstantReader.class.getClassLoader());
+    }
+
+    public ConstantReader(ByteBuffer buffer, ClassLoader loader) {
+        this.channel = null;
+        this.buffer = buffer;
+        this.loader = loader;
+        this.types = new ArrayList<>();
+        this.inlineTypes = true;
+    }
+
+    /// Creates a reader for data written with detached type definitions, which have already been read.
+    ///
+    /// @see #readDefinitions(int)
+    ConstantReader(ByteBuffer buffer, List<Type> types) {
+        this.channel = null;
+        this.buffer = buffer;
+        this.loader = null;
+        this.types = types;
+        this.inlineTypes = false;
+    }
+
+    /// @return true if there is another value to read
+    public boolean hasNext() throws IOException {
+        if (buffer.hasRemaining()) return true;
+        if (channel == null) return false;
+        buffer.clear();
+        final int read = channel.read(buffer);
+        buffer.flip();
+        return read > 0;
+    }
+
+    /// Reads the next value in full.
+    ///
+    /// @return The value (a constant, a Java constable or null)
+    public Object read() throws IOException {
+        return this.read(this.get());
+    }
+
+    /// Reads the next value, which must be an array, passing each of its elements to the action in turn.
+    /// Arrays large enough to be streamed are never held in memory by the reader.
+    ///
+    /// @param action The action to perform on each element
+    /// @return The number of elements
+    public int readArray(Consumer<Object> action) throws IOException {
+        final byte tag = this.get();
+        if (tag == Codec.REFERENCE && this.reference() instanceof Array array) {
+            array.forEach(action);
+            return array.size();
+        }
+        if (tag != Codec.ARRAY) throw new ConstantConstructionError("Not an array, found tag " + tag);
+        final int length = this.getLength();
+        if (length >= Codec.STREAMING_THRESHOLD) {
+            for (int i = 0; i < length; i++) action.accept(this.read());
+            return length;
+        }
+        final Array array = this.readElements(length);
+        array.forEach(action);
+        return length;
+    }
+
+    /// Reads a value without recursing: each array or constant being read is a frame on a stack,
+    /// completed (and popped) once all of its parts have been read.
+    private Object read(byte tag) throws IOException {
+        final Deque<Frame> pending = new ArrayDeque<>();
+        return this.complete(this.begin(tag, pending), pending);
+    }
+
+    private Array readElements(int length) throws IOException {
+        final Deque<Frame> pending = new ArrayDeque<>();
+        pending.push(new Frame(null, this.reserve(), new Constable[length], 0));
+        return (Array) this.complete(PENDING, pending);
+    }
+
+    private Object complete(Object value, Deque<Frame> pending) throws IOException {
+        while (!pending.isEmpty()) {
+            final Frame frame = pending.peek();
+            if (value != PENDING) frame.parts[frame.next++] = value;
+            if (frame.next < frame.parts.length) value = this.begin(this.get(), pending);
+            else {
+                pending.pop();
+                value = this.finish(frame);
+            }
+        }
+        return value;
+    }
+
+    /// Reads a leaf value, or the start of an array or constant (pushing its frame and returning [#PENDING]).
+    private Object begin(byte tag, Deque<Frame> pending) throws IOException {
+        return switch (tag) {
+            case Codec.NULL -> null;
+            case Codec.TRUE -> true;
+            case Codec.FALSE -> false;
+            case Codec.INT -> (int) this.getSigned();
+            case Codec.LONG -> this.getSigned();
+            case Codec.FLOAT -> {
+                this.require(4);
+                yield buffer.getFloat();
+            }
+            case Codec.DOUBLE -> {
+                this.require(8);
+                yield buffer.getDouble();
+            }
+            case Codec.CHAR -> (char) this.getVarint();
+            case Codec.SHORT -> (short) this.getSigned();
+            case Codec.BYTE -> this.get();
+            case Codec.STRING -> {
+                final String string = this.getString();
+                this.references.add(string);
+                yield string;
+            }
+            case Codec.ENUM -> this.readEnum();
+            case Codec.ARRAY -> {
+                final int length = this.getLength();
+                final int id = length >= Codec.STREAMING_THRESHOLD ? -1 : this.reserve();
+                pending.push(new Frame(null, id, new Constable[length], 0));
+                yield PENDING;
+            }
+            case Codec.PACKED -> this.readPacked();
+            case Codec.CONSTANT -> {
+                final Type type = this.getType();
+                if (type.kind == Codec.KIND_ENUM) throw new ConstantConstructionError("Not a constant: " + type.type);
+                final Object[] arguments = new Object[type.signature.parameterCount() + 1];
+                arguments[0] = type.signature;
+                pending.push(new Frame(type, this.reserve(), arguments, 1));
+                yield PENDING;
+            }
+            case Codec.REFERENCE -> this.reference();
+            default -> throw new ConstantConstructionError("Unknown tag " + tag);
+        };
+    }
+
+    private Object finish(Frame frame) {
+        final Object value;
+        if (frame.type == null) value = new Array((Constable[]) frame.parts, false);
+        else {
+            final Object result;
+            try {
+                result = (Object) frame.type.factory.invokeExact(frame.parts);
+            } catch (Throwable ex) {
+                throw new ConstantConstructionError("Unable to create " + frame.type.type.getName(), ex);
+            }
+            value = result instanceof Canonical<?> canonical ? canonical.intern() : (Constant) result;
+        }
+        if (frame.id >= 0) this.references.set(frame.id, value);
+        return value;
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private Object readEnum() throws IOException {
+        final Type type = this.getType();
+        if (type.kind != Codec.KIND_ENUM) throw new ConstantConstructionError("Not an enum: " + type.type);
+        return Enum.valueOf((Class<? extends Enum>) type.type, this.getString());
+    }
+
+    private Constant readPacked() throws IOException {
+        final byte kind = this.get();
+        final int length = this.getLength();
+        final int width = switch (kind) {
+            case Codec.PACKED_INT -> Integer.BYTES;
+            case Codec.PACKED_LONG, Codec.PACKED_DOUBLE -> Long.BYTES;
+            case Codec.PACKED_BYTE -> Byte.BYTES;
+            default -> throw new ConstantConstructionError("Unknown packed array kind " + kind);
+        };
+        final ByteBuffer data = ByteBuffer.wrap(this.getBytes(Math.multiplyExact(length, width)));
+        final Constant array = switch (kind) {
+            case Codec.PACKED_INT -> IntArray.decode(data);
+            case Codec.PACKED_LONG -> LongArray.decode(data);
+            case Codec.PACKED_DOUBLE -> DoubleArray.decode(data);
+            default -> ByteArray.decode(data);
+        };
+        this.references.add(array);
+        return array;
+    }
+
+    private Object reference() throws IOException {
+        final int id = this.getLength();
+        if (id >= references.size()) throw new ConstantConstructionError("Unknown reference " + id);
+        final Object value = references.get(id);
+        if (value == null) throw new ConstantConstructionError("Reference " + id + " is not complete");
+        return value;
+    }
+
+    /// Reads a run of type definitions, as written (detached) by a writer's definitions writer.
+    ///
+    /// @param count The number of definitions to read
+    /// @return The resolved types, in index order
+    List<Type> readDefinitions(int count) throws IOException {
+        final List<Type> list = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) list.add(this.readDefinition());
+        return list;
+    }
+
+    private int reserve() {
+        this.references.add(null);
+        return references.size() - 1;
+    }
+
+    private Type getType() throws IOException {
+        final int index = this.getLength();
+        if (index < types.size()) return types.get(index);
+        if (index != types.size() || !inlineTypes) throw new ConstantConstructionError("Unknown type " + index);
+        final Type type = this.readDefinition();
+        this.types.add(type);
+        return type;
+    }
+
+    private Type readDefinition() throws IOException {
+        final byte kind = this.get();
+        if (kind != Codec.KIND_CONSTRUCTOR && kind != Codec.KIND_FACTORY && kind != Codec.KIND_ENUM)
+            throw new ConstantConstructionError("Unknown type kind " + kind);
+        final String name = this.getString();
+        final String factoryName = kind == Codec.KIND_FACTORY ? this.getString() : null;
+        final Type type;
+        try {
+            final Class<?> target = Class.forName(name, false, loader);
+            if (kind == Codec.KIND_ENUM ? !target.isEnum() : !Constant.class.isAssignableFrom(target))
+                throw new ConstantConstructionError("Not a constant type: " + name);
+            final Verdict verdict = Verdict.of(target); // nothing is resolved in a type that is not constant
+            if (!verdict.isConstant()) throw new ConstantConstructionError(verdict.reason());
+            if (kind == Codec.KIND_ENUM) type = new Type(target, kind, null, null);
+            else {
+                final MethodType signature = MethodType.fromMethodDescriptorString(this.getString(), loader);
+                if (signature.returnType() != (kind == Codec.KIND_FACTORY ? target : void.class))
+                    throw new ConstantConstructionError("Bad signature for " + name + ": " + signature);
+                final String refusal = verdict.refusal(factoryName, signature.parameterArray());
+                if (refusal != null) throw new ConstantConstructionError(refusal);
+                final MethodHandles.Lookup lookup = Utilities.lookupIn(target);
+                type = new Type(target, kind, signature, Utilities.factory(lookup, target, factoryName, signature));
+            }
+        } catch (ClassNotFoundException | TypeNotPresentException | NoSuchMethodException |
+                 IllegalAccessException ex) {
+            throw new ConstantConstructionError("Unable to resolve type " + name, ex);
+        }
+        return type;
+    }
+
+    private String getString() throws IOException {
+        return new String(this.getBytes(this.getLength()), StandardCharsets.UTF_8);
+    }
+
+    private byte[] getBytes(int length) throws IOException {
+        final byte[] bytes = new byte[length];
+        int offset = 0;
+        while (offset < length) {
+            if (!buffer.hasRemaining()) this.require(1);
+            final int count = Math.min(buffer.remaining(), length - offset);
+            buffer.get(bytes, offset, count);
+            offset += count;
+        }
+        return bytes;
+    }
+
+    private int getLength() throws IOException {
+        final long value = this.getVarint();
+        if (value < 0 || value > Integer.MAX_VALUE) throw new ConstantConstructionError("Bad length " + value);
+        return (int) value;
+    }
+
+    private long getSigned() throws IOException {
+        final long value = this.getVarint();
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private long getVarint() throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            final byte part = this.get();
+            value |= (long) (part & 0x7F) << shift;
+            if (part >= 0) return value;
+        }
+        throw new ConstantConstructionError("Malformed varint");
+    }
+
+    private byte get() throws IOException {
+        this.require(1);
+        return buffer.get();
+    }
+
+    private void require(int bytes) throws IOException {
+        if (buffer.remaining() >= bytes) return;
+        if (channel == null) throw new EOFException();
+        buffer.compact();
+        while (buffer.position() < bytes) {
+            if (channel.read(buffer) < 0) {
+                buffer.flip();
+                throw new EOFException();
+            }
+        }
+        buffer.flip();
+    }
+
+    record Type(Class<?> type, byte kind, MethodType signature, MethodHandle factory) {}
+
+    /// An array (with no type) or constant whose parts are being read.
+    private static final class Frame {
+
+        final Type type;
+        final int id;
+        final Object[] parts;
+        int next;
+
+        Frame(Type type, int id, Object[] parts, int next) {
+            this.type = type;
+            this.id = id;
+            this.parts = parts;
+            this.next = next;
+        }
+
+    }
+
+}
@@ -0,0 +1,185 @@
+package org.valross.constantine;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.io.Serial;
+import java.lang.constant.Constable;
+import java.lang.constant.ConstantDesc;
+import java.lang.constant.DynamicConstantDesc;
+import java.util.*;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+import static java.lang.constant.ConstantDescs.DEFAULT_NAME;
+
+/// A constant (frozen) set of constants.
+///
+/// Sets are persistent: [#with(Constable)] and [#without(Object)] derive a new set in `O(log n)`,
+/// sharing all but the changed path of the underlying hash array mapped trie with the original.
+/// Membership queries are likewise `O(log n)`, and in practice a handful of steps.
+///
+/// Elements cannot be null. The iteration order is unspecified.
+///
+/// @param <Element> The type of element
+public final class ConstantSet<Element extends Constable> extends AbstractSet<Element> implements Constant {
+
+    private static final ConstantSet<?> EMPTY = new ConstantSet<>(HashTrie.EMPTY);
+
+    private final HashTrie trie;
+    private transient int hash;
+    private transient boolean hashIsZero;
+    private transient Optional<? extends ConstantDesc> description;
+
+    private ConstantSet(HashTrie trie) {
+        this.trie = trie;
+    }
+
+    /// The canonical constructor.
+    ConstantSet(Constable[] elements) {
+        this(HashTrie.of(elements, false));
+    }
+
+    @SuppressWarnings("unchecked")
+    public static <Element extends Constable> ConstantSet<Element> of() {
+        return (ConstantSet<Element>) EMPTY;
+    }
+
+    @SafeVarargs
+    public static <Element extends Constable> ConstantSet<Element> of(Element... elements) {
+        return new ConstantSet<>(HashTrie.of(elements, false));
+    }
+
+    @SuppressWarnings("unchecked")
+    public static <Element extends Constable> ConstantSet<Element> of(Collection<? extends Element> elements) {
+        if (elements instanceof ConstantSet<?> constant) return (ConstantSet<Element>) constant;
+        HashTrie trie = HashTrie.EMPTY;
+        for (Element element : elements) trie = trie.with(element, element);
+        return new ConstantSet<>(trie);
+    }
+
+    static ConstantSet<?> of(Object[] elements) {
+        return new ConstantSet<>(HashTrie.of(elements, false));
+    }
+
+    /// @return a set with this element, and the same elements as this one otherwise
+    public ConstantSet<Element> with(Element element) {
+        final HashTrie trie = this.trie.with(element, element);
+        return trie == this.trie ? this : new ConstantSet<>(trie);
+    }
+
+    /// @return a set without this element, and the same elements as this one otherwise
+    public ConstantSet<Element> without(Object element) {
+        final HashTrie trie = this.trie.without(element);
+        return trie == this.trie ? this : new ConstantSet<>(trie);
+    }
+
+    @Override
+    public Constable[] serial() {
+        return new Constable[] {new Array(this.toArray(new Constable[0]), false)};
+    }
+
+    @Override
+    public Class<?>[] canonicalParameters() {
+        return new Class[] {Constable[].class};
+    }
+
+    @Override
+    public ConstantSet<Element> constant() {
+        return this;
+    }
+
+    @Override
+    public Optional<? extends ConstantDesc> describeConstable() {
+        Optional<? extends ConstantDesc> description = this.description;
+        if (description == null) this.description = description = this.describe(); // racy but idempotent
+        return description;
+    }
+
+    private Optional<? extends ConstantDesc> describe() {
+        final ConstantDesc[] arguments = new ConstantDesc[trie.size()];
+        final int[] index = {0};
+        trie.forEach((key, value) -> arguments[index[0]++] = Utilities.describe((Constable) key));
+        return Optional.of(DynamicConstantDesc.ofNamed(BOOTSTRAP_SET, DEFAULT_NAME, SET_DESC, arguments));
+    }
+
+    @Override
+    public int size() {
+        return trie.size();
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return trie.size() == 0;
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        return trie.containsKey(o);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public @NotNull Iterator<Element> iterator() {
+        return trie.iterator((key, value) -> (Element) key);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public void forEach(Consumer<? super Element> action) {
+        Objects.requireNonNull(action);
+        trie.forEach((key, value) -> action.accept((Element) key));
+    }
+
+    @Override
+    public boolean add(Element element) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public boolean remove(Object o) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public boolean addAll(@NotNull Collection<? extends Element> c) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public boolean removeAll(@NotNull Collection<?> c) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public boolean retainAll(@NotNull Collection<?> c) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public boolean removeIf(Predicate<? super Element> filter) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void clear() {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public int hashCode() {
+        int hash = this.hash;
+        if (hash == 0 && !hashIsZero) {
+            hash = super.hashCode();
+            if (hash == 0) this.hashIsZero = true;
+            else this.hash = hash;
+        }
+        return hash;
+    }
+
+    /// Written as its elements, rather than its trie.
+    @Serial
+    private Object writeReplace() {
+        return ConstantProxy.of(this);
+    }
+
+}
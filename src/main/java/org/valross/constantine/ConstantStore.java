@@ -0,0 +1,243 @@
+package org.valross.constantine;
+
+import java.io.*;
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.function.Function;
+
+/// A read-only, file-backed list of constants.
+///
+/// The file is memory-mapped when opened, so opening a store does not read its entries:
+/// each entry is decoded (by a [ConstantReader]) only when it is accessed, and the data itself lives in the
+/// page cache rather than on the heap. Entries are not cached, so an entry accessed twice is decoded twice.
+///
+/// The mapping is held by a shared [Arena], so it is released as soon as the store is [closed][#close()]
+/// (rather than whenever the garbage collector reclaims it). Accessing a closed store, including from another
+/// thread part-way through decoding an entry, throws an [IllegalStateException] instead of reading unmapped memory.
+///
+/// A store can also be written with a key index, allowing an entry to be [found][#find(Object)] by key
+/// without decoding any entries other than the one with a matching key hash.
+/// Keys are hashed by their encoded form, which is stable across processes.
+///
+/// The file layout is:
+///   - a header (see [#HEADER])
+///   - the entries, each encoded independently (no back-references between entries)
+///   - the offset of each entry, and of the end of the last entry
+///   - the type definitions shared by all entries
+///   - the key index (if any), an open-addressed table of entry numbers
+///
+/// @param <Type> The type of entry
+public final class ConstantStore<Type extends Constant> extends AbstractList<Type>
+    implements RandomAccess, AutoCloseable {
+
+    /// The header: magic, version, entry count, type count and key slot count (ints),
+    /// then the offsets of the entry index, type definitions and key index (longs).
+    static final int HEADER = 44;
+    static final int MAGIC = 0x434E5354, VERSION = 1;
+    private static final ValueLayout.OfLong LONG = ValueLayout.JAVA_LONG_UNALIGNED.withOrder(ByteOrder.BIG_ENDIAN);
+    private static final ValueLayout.OfInt INT = ValueLayout.JAVA_INT_UNALIGNED.withOrder(ByteOrder.BIG_ENDIAN);
+
+    private final Class<Type> type;
+    private final Function<? super Type, ?> key;
+    private final Arena arena;
+    private final MemorySegment data;
+    private final List<ConstantReader.Type> types;
+    private final int size, keySlots;
+    private final long indexOffset, keysOffset;
+
+    private ConstantStore(Class<Type> type, Function<? super Type, ?> key, FileChannel file) throws IOException {
+        this.type = type;
+        this.key = key;
+        final ByteBuffer header = ByteBuffer.allocate(HEADER);
+        while (header.hasRemaining()) if (file.read(header, header.position()) < 0) throw new EOFException();
+        header.flip();
+        if (header.getInt() != MAGIC) throw new IOException("Not a constant store");
+        if (header.getInt() != VERSION) throw new IOException("Unsupported constant store version");
+        this.size = header.getInt();
+        final int typeCount = header.getInt();
+        this.keySlots = header.getInt();
+        this.indexOffset = header.getLong();
+        final long typesOffset = header.getLong();
+        this.keysOffset = header.getLong();
+        final long length = file.size();
+        this.arena = Arena.ofShared();
+        try {
+            this.data = file.map(FileChannel.MapMode.READ_ONLY, 0, length, arena);
+            final long typesEnd = keySlots > 0 ? keysOffset : length;
+            final ConstantReader reader = new ConstantReader(this.at(typesOffset, (int) (typesEnd - typesOffset)),
+                type.getClassLoader());
+            this.types = List.copyOf(reader.readDefinitions(typeCount));
+        } catch (IOException | RuntimeException | Error ex) {
+            arena.close();
+            throw ex;
+        }
+    }
+
+    /// Opens a store of entries. The store should be [closed][#close()] once it is no longer needed.
+    ///
+    /// @param path The store file
+    /// @param type The type of entry
+    /// @return The store
+    public static <Type extends Constant> ConstantStore<Type> open(Path path, Class<Type> type) throws IOException {
+        return open(path, type, null);
+    }
+
+    /// Opens a store of entries with a key index.
+    ///
+    /// @param path The store file
+    /// @param type The type of entry
+    /// @param key  The key function the store was written with
+    /// @return The store
+    public static <Type extends Constant> ConstantStore<Type> open(Path path, Class<Type> type,
+                                                                   Function<? super Type, ?> key)
+        throws IOException {
+        try (FileChannel file = FileChannel.open(path, StandardOpenOption.READ)) {
+            return new ConstantStore<>(type, key, file); // the mapping outlives the channel
+        }
+    }
+
+    /// Writes a store of entries without a key index.
+    ///
+    /// @param path    The store file (created or replaced)
+    /// @param entries The entries
+    public static void write(Path path, Collection<? extends Constant> entries) throws IOException {
+        write(path, entries, null);
+    }
+
+    /// Writes a store of entries, with a key index for [#find(Object)].
+    ///
+    /// @param path    The store file (created or replaced)
+    /// @param entries The entries
+    /// @param key     A function producing a (constant) key for each entry, or null for no key index
+    public static <Type extends Constant> void write(Path path, Collection<? extends Type> entries,
+                                                     Function<? super Type, ?> key) throws IOException {
+        try (FileChannel file = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+            StandardOpenOption.TRUNCATE_EXISTING)) {
+            final ByteArrayOutputStream definitionBytes = new ByteArrayOutputStream();
+            final ConstantWriter definitions = new ConstantWriter(Channels.newChannel(definitionBytes), 1024);
+            final ByteArrayOutputStream entryBytes = new ByteArrayOutputStream();
+            final ConstantWriter writer = new ConstantWriter(Channels.newChannel(entryBytes), 8192, definitions);
+            final DataOutputStream output = new DataOutputStream(new BufferedOutputStream(
+                Channels.newOutputStream(file.position(HEADER)), 1 << 16));
+            final long[] offsets = new long[entries.size() + 1];
+            long position = HEADER;
+            int index = 0;
+            for (Type entry : entries) {
+                writer.reset();
+                entryBytes.reset();
+                writer.write(entry);
+                writer.flush();
+                offsets[index++] = position;
+                entryBytes.writeTo(output);
+                position += entryBytes.size();
+            }
+            offsets[index] = position;
+            final long indexOffset = position;
+            for (long offset : offsets) output.writeLong(offset);
+            position += (long) offsets.length * Long.BYTES;
+            definitions.flush();
+            final long typesOffset = position;
+            definitionBytes.writeTo(output);
+            position += definitionBytes.size();
+            final long keysOffset = position;
+            int keySlots = 0;
+            if (key != null) {
+                keySlots = Integer.highestOneBit(Math.max(1, entries.size()) * 2 - 1) << 1;
+                final int[] table = new int[keySlots];
+                index = 0;
+                for (Type entry : entries) {
+                    int slot = (int) hash(key.apply(entry)) & (keySlots - 1);
+                    while (table[slot] != 0) slot = (slot + 1) & (keySlots - 1);
+                    table[slot] = ++index;
+                }
+                for (int slot : table) output.writeInt(slot);
+            }
+            output.flush();
+            final ByteBuffer header = ByteBuffer.allocate(HEADER);
+            header.putInt(MAGIC).putInt(VERSION).putInt(entries.size()).putInt(writer.typeCount())
+                .putInt(keySlots).putLong(indexOffset).putLong(typesOffset).putLong(keysOffset).flip();
+            while (header.hasRemaining()) file.write(header, header.position());
+        }
+    }
+
+    /// A stable (cross-process) hash of a key, computed from its encoded form.
+    private static long hash(Object key) {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        final ConstantWriter writer = new ConstantWriter(Channels.newChannel(bytes), 256);
+        try {
+            writer.write(key);
+            writer.flush();
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+        long hash = 0xcbf29ce484222325L; // FNV-1a
+        for (byte part : bytes.toByteArray()) hash = (hash ^ (part & 0xFF)) * 0x100000001b3L;
+        return hash ^ (hash >>> 32);
+    }
+
+    /// Decodes the entry at an index.
+    ///
+    /// @param index The entry's index
+    /// @return The entry
+    @Override
+    public Type get(int index) {
+        Objects.checkIndex(index, size);
+        final long start = this.getLong(indexOffset + (long) index * Long.BYTES);
+        final long end = this.getLong(indexOffset + (long) (index + 1) * Long.BYTES);
+        try {
+            return type.cast(new ConstantReader(this.at(start, (int) (end - start)), types).read());
+        } catch (IOException ex) {
+            throw new ConstantConstructionError("Corrupt entry " + index, ex);
+        }
+    }
+
+    /// Finds the entry with a key, using the key index.
+    ///
+    /// @param key The key to look for
+    /// @return The entry with that key, or null if there is none
+    /// @throws IllegalStateException if this store was written or opened without a key function
+    public Type find(Object key) {
+        if (keySlots == 0 || this.key == null) throw new IllegalStateException("This store has no key index");
+        int slot = (int) hash(key) & (keySlots - 1);
+        while (true) {
+            final int entry = this.getInt(keysOffset + (long) slot * Integer.BYTES);
+            if (entry == 0) return null;
+            final Type candidate = this.get(entry - 1);
+            if (Objects.equals(this.key.apply(candidate), key)) return candidate;
+            slot = (slot + 1) & (keySlots - 1);
+        }
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /// Unmaps the file. Entries already decoded remain usable; accessing the store afterward throws
+    /// an [IllegalStateException]. Closing a closed store has no effect.
+    @Override
+    public synchronized void close() {
+        if (arena.scope().isAlive()) arena.close();
+    }
+
+    private ByteBuffer at(long position, int length) {
+        return data.asSlice(position, length).asByteBuffer();
+    }
+
+    private long getLong(long position) {
+        return data.get(LONG, position);
+    }
+
+    private int getInt(long position) {
+        return data.get(INT, position);
+    }
+
+}
@@ -0,0 +1,23 @@
+package org.valross.constantine;
+
+import java.lang.annotation.*;
+
+/// Marks a constant type for compile-time processing by the Constantine annotation processor.
+///
+/// The processor checks (at compile time) that the type meets the requirements of a constant,
+/// and generates a [Companion] for it named after the type's binary name with a `_Companion` suffix
+/// (e.g. `Person_Companion`). The companion implements the type's deconstruction with direct calls.
+///
+/// The runtime uses a companion automatically where one exists:
+/// [RecordConstant]s deconstruct through it rather than by reflection. Validation still runs at runtime,
+/// since a companion (a class file found by name) is no proof of how the type was compiled.
+/// Other constant types that do not implement [Constant#serial()] and [Constant#canonicalParameters()]
+/// inherit defaults that delegate to it.
+///
+/// @see Companion
+@Documented
+@Retention(RetentionPolicy.CLASS)
+@Target(ElementType.TYPE)
+public @interface ConstantType {
+
+}
@@ -0,0 +1,83 @@
+package org.valross.constantine;
+
+import java.lang.constant.Constable;
+
+/// Receives the contents of a constant graph, as it is walked depth-first by [#walk(Object, ConstantVisitor)].
+///
+/// Each constant is delivered as an [enter][#enterConstant(Constant, int)] event, then its parts
+/// (in the order of its serial), then an [exit][#exitConstant(Constant)] event.
+/// Arrays (constant arrays, packed primitive arrays and array components of records) are delivered the same way,
+/// as [#enterArray(Object, int)] and [#exitArray(Object)] around their elements.
+/// Primitive values (boxed or not) are delivered unboxed, and strings are delivered as themselves.
+/// Anything else (e.g. an enum or a class) is delivered to [#visitValue(Constable)].
+///
+/// Walking reads record components (and array contents) directly, so it does not allocate the arrays
+/// that [Constant#serial()] would, nor box primitive components.
+/// Other constants (and records that override their serial) are broken down through their serial.
+/// The walk keeps its own stack, so deeply nested graphs do not overflow the thread's stack.
+///
+/// Every method does nothing by default.
+public interface ConstantVisitor {
+
+    /// Walks a value, depth-first.
+    ///
+    /// @param value   The value (usually a constant) to walk
+    /// @param visitor The visitor to deliver its contents to
+    /// @throws ConstantError if a constant cannot be broken down
+    static void walk(Object value, ConstantVisitor visitor) {
+        ConstantWalker.walk(value, visitor);
+    }
+
+    /// @param constant The constant being entered
+    /// @param parts    The number of parts it has (i.e. the length of its serial)
+    default void enterConstant(Constant constant, int parts) {
+    }
+
+    default void exitConstant(Constant constant) {
+    }
+
+    /// @param array  The array being entered: an [Array], a packed array (e.g. [IntArray]), a Java array
+    ///               (for an array component of a record) or, for a [ConstantMap] or [ConstantSet],
+    ///               the map or set itself (whose entries are delivered as alternating keys and values)
+    /// @param length The number of elements
+    default void enterArray(Object array, int length) {
+    }
+
+    default void exitArray(Object array) {
+    }
+
+    default void visitNull() {
+    }
+
+    default void visitBoolean(boolean value) {
+    }
+
+    default void visitByte(byte value) {
+    }
+
+    default void visitShort(short value) {
+    }
+
+    default void visitChar(char value) {
+    }
+
+    default void visitInt(int value) {
+    }
+
+    default void visitLong(long value) {
+    }
+
+    default void visitFloat(float value) {
+    }
+
+    default void visitDouble(double value) {
+    }
+
+    default void visitString(String value) {
+    }
+
+    /// @param value Any other value, e.g. an enum constant, a class or a method type
+    default void visitValue(Constable value) {
+    }
+
+}
@@ -0,0 +1,321 @@
+package org.valross.constantine;
+
+import java.lang.constant.Constable;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.RecordComponent;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.Map;
+
+/// Walks constant graphs for [ConstantVisitor].
+///
+/// The walk is iterative: each container being walked (a constant, array, map or set) is a [Frame]
+/// on an explicit stack, so graphs of any depth can be walked without exhausting the thread's stack.
+///
+/// Record components are read by accessor handles adapted to their (erased) types,
+/// so primitive components are read without boxing. These are resolved once per record class.
+final class ConstantWalker {
+
+    private static final ClassValue<Component[]> COMPONENTS = new ClassValue<>() {
+        @Override
+        protected Component[] computeValue(Class<?> type) {
+            return ConstantWalker.resolve(type);
+        }
+    };
+
+    private ConstantWalker() {
+    }
+
+    /// @return the record's components, or null if the record's serial (or a companion) must be used instead
+    private static Component[] resolve(Class<?> type) {
+        if (Utilities.companion(type) != null) return null;
+        try {
+            if (type.getMethod("serial").getDeclaringClass() != RecordConstant.class) return null;
+        } catch (NoSuchMethodException ex) {
+            return null;
+        }
+        final RecordComponent[] components = type.getRecordComponents();
+        final Component[] result = new Component[components.length];
+        try {
+            for (int i = 0; i < components.length; i++) {
+                final Class<?> component = components[i].getType();
+                final Class<?> erased = component.isPrimitive() ? component : Object.class;
+                final MethodHandle accessor = Utilities.lookupIn(type).unreflect(components[i].getAccessor())
+                    .asType(MethodType.methodType(erased, Object.class));
+                result[i] = new Component(erased, accessor);
+            }
+        } catch (IllegalAccessException e) {
+            throw new ConstantDeconstructionError("Unable to access record components: " + type, e);
+        }
+        return result;
+    }
+
+    static void walk(Object value, ConstantVisitor visitor) {
+        final Deque<Frame> stack = new ArrayDeque<>();
+        visit(value, visitor, stack);
+        while (!stack.isEmpty()) {
+            final Frame frame = stack.peek();
+            if (frame.step(visitor, stack)) continue;
+            stack.pop();
+            frame.exit(visitor);
+        }
+    }
+
+    /// Visits a leaf value (or packed array) in full, or enters a container and pushes its frame.
+    private static void visit(Object value, ConstantVisitor visitor, Deque<Frame> stack) {
+        switch (value) {
+            case null -> visitor.visitNull();
+            case String string -> visitor.visitString(string);
+            case Integer number -> visitor.visitInt(number);
+            case Long number -> visitor.visitLong(number);
+            case Double number -> visitor.visitDouble(number);
+            case Float number -> visitor.visitFloat(number);
+            case Boolean bool -> visitor.visitBoolean(bool);
+            case Character character -> visitor.visitChar(character);
+            case Short number -> visitor.visitShort(number);
+            case Byte number -> visitor.visitByte(number);
+            case Array array -> {
+                visitor.enterArray(array, array.size());
+                stack.push(new ArrayFrame(array));
+            }
+            case IntArray array -> {
+                visitor.enterArray(array, array.size());
+                for (int i = 0; i < array.size(); i++) visitor.visitInt(array.get(i));
+                visitor.exitArray(array);
+            }
+            case LongArray array -> {
+                visitor.enterArray(array, array.size());
+                for (int i = 0; i < array.size(); i++) visitor.visitLong(array.get(i));
+                visitor.exitArray(array);
+            }
+            case DoubleArray array -> {
+                visitor.enterArray(array, array.size());
+                for (int i = 0; i < array.size(); i++) visitor.visitDouble(array.get(i));
+                visitor.exitArray(array);
+            }
+            case ByteArray array -> {
+                visitor.enterArray(array, array.size());
+                for (int i = 0; i < array.size(); i++) visitor.visitByte(array.get(i));
+                visitor.exitArray(array);
+            }
+            case ConstantMap<?, ?> map -> {
+                visitor.enterConstant(map, 1);
+                visitor.enterArray(map, map.size() * 2);
+                stack.push(new EntryFrame(map, map.entrySet().iterator()));
+            }
+            case ConstantSet<?> set -> {
+                visitor.enterConstant(set, 1);
+                visitor.enterArray(set, set.size());
+                stack.push(new EntryFrame(set, set.iterator()));
+            }
+            case Enum<?> constant -> visitor.visitValue(constant);
+            case RecordConstant record when record instanceof Record && COMPONENTS.get(record.getClass()) != null -> {
+                final Component[] components = COMPONENTS.get(record.getClass());
+                visitor.enterConstant(record, components.length);
+                stack.push(new RecordFrame(record, components));
+            }
+            case Constant constant -> {
+                final Constable[] serial;
+                try {
+                    serial = constant.serial();
+                } catch (Throwable ex) {
+                    throw new ConstantDeconstructionError(ex);
+                }
+                visitor.enterConstant(constant, serial.length);
+                stack.push(new ElementFrame(constant, serial));
+            }
+            case Constable constable -> visitor.visitValue(constable);
+            case Object[] array -> {
+                visitor.enterArray(array, array.length);
+                stack.push(new ElementFrame(array, array));
+            }
+            case int[] array -> {
+                visitor.enterArray(array, array.length);
+                for (int element : array) visitor.visitInt(element);
+                visitor.exitArray(array);
+            }
+            case long[] array -> {
+                visitor.enterArray(array, array.length);
+                for (long element : array) visitor.visitLong(element);
+                visitor.exitArray(array);
+            }
+            case double[] array -> {
+                visitor.enterArray(array, array.length);
+                for (double element : array) visitor.visitDouble(element);
+                visitor.exitArray(array);
+            }
+            case float[] array -> {
+                visitor.enterArray(array, array.length);
+                for (float element : array) visitor.visitFloat(element);
+                visitor.exitArray(array);
+            }
+            case byte[] array -> {
+                visitor.enterArray(array, array.length);
+                for (byte element : array) visitor.visitByte(element);
+                visitor.exitArray(array);
+            }
+            case short[] array -> {
+                visitor.enterArray(array, array.length);
+                for (short element : array) visitor.visitShort(element);
+                visitor.exitArray(array);
+            }
+            case char[] array -> {
+                visitor.enterArray(array, array.length);
+                for (char element : array) visitor.visitChar(element);
+                visitor.exitArray(array);
+            }
+            case boolean[] array -> {
+                visitor.enterArray(array, array.length);
+                for (boolean element : array) visitor.visitBoolean(element);
+                visitor.exitArray(array);
+            }
+            default -> throw new ConstantDeconstructionError("Not a constant value: " + value.getClass().getName());
+        }
+    }
+
+    /// A container part-way through being walked.
+    private abstract static class Frame {
+
+        int index;
+
+        /// Visits the next part, which may push a frame of its own.
+        ///
+        /// @return false if there are no parts left
+        abstract boolean step(ConstantVisitor visitor, Deque<Frame> stack);
+
+        abstract void exit(ConstantVisitor visitor);
+
+    }
+
+    /// The elements of an object array, or the serial of a constant.
+    private static final class ElementFrame extends Frame {
+
+        private final Object owner;
+        private final Object[] elements;
+
+        ElementFrame(Object owner, Object[] elements) {
+            this.owner = owner;
+            this.elements = elements;
+        }
+
+        @Override
+        boolean step(ConstantVisitor visitor, Deque<Frame> stack) {
+            if (index == elements.length) return false;
+            visit(elements[index++], visitor, stack);
+            return true;
+        }
+
+        @Override
+        void exit(ConstantVisitor visitor) {
+            if (owner instanceof Constant constant) visitor.exitConstant(constant);
+            else visitor.exitArray(owner);
+        }
+
+    }
+
+    private static final class ArrayFrame extends Frame {
+
+        private final Array array;
+
+        ArrayFrame(Array array) {
+            this.array = array;
+        }
+
+        @Override
+        boolean step(ConstantVisitor visitor, Deque<Frame> stack) {
+            if (index == array.size()) return false;
+            visit(array.get(index++), visitor, stack);
+            return true;
+        }
+
+        @Override
+        void exit(ConstantVisitor visitor) {
+            visitor.exitArray(array);
+        }
+
+    }
+
+    /// The entries of a map (each key, then its value) or the elements of a set.
+    private static final class EntryFrame extends Frame {
+
+        private final Constant owner;
+        private final Iterator<?> iterator;
+        private Object value;
+        private boolean pending;
+
+        EntryFrame(Constant owner, Iterator<?> iterator) {
+            this.owner = owner;
+            this.iterator = iterator;
+        }
+
+        @Override
+        boolean step(ConstantVisitor visitor, Deque<Frame> stack) {
+            if (pending) {
+                this.pending = false;
+                visit(value, visitor, stack);
+                return true;
+            }
+            if (!iterator.hasNext()) return false;
+            final Object next = iterator.next();
+            if (next instanceof Map.Entry<?, ?> entry && owner instanceof ConstantMap<?, ?>) {
+                this.value = entry.getValue();
+                this.pending = true;
+                visit(entry.getKey(), visitor, stack);
+            } else visit(next, visitor, stack);
+            return true;
+        }
+
+        @Override
+        void exit(ConstantVisitor visitor) {
+            visitor.exitArray(owner);
+            visitor.exitConstant(owner);
+        }
+
+    }
+
+    private static final class RecordFrame extends Frame {
+
+        private final Constant record;
+        private final Component[] components;
+
+        RecordFrame(Constant record, Component[] components) {
+            this.record = record;
+            this.components = components;
+        }
+
+        @Override
+        boolean step(ConstantVisitor visitor, Deque<Frame> stack) {
+            if (index == components.length) return false;
+            final Component component = components[index++];
+            final MethodHandle accessor = component.accessor;
+            final Class<?> type = component.type;
+            try {
+                if (type == Object.class) visit((Object) accessor.invokeExact((Object) record), visitor, stack);
+                else if (type == int.class) visitor.visitInt((int) accessor.invokeExact((Object) record));
+                else if (type == long.class) visitor.visitLong((long) accessor.invokeExact((Object) record));
+                else if (type == double.class) visitor.visitDouble((double) accessor.invokeExact((Object) record));
+                else if (type == boolean.class) visitor.visitBoolean((boolean) accessor.invokeExact((Object) record));
+                else if (type == float.class) visitor.visitFloat((float) accessor.invokeExact((Object) record));
+                else if (type == char.class) visitor.visitChar((char) accessor.invokeExact((Object) record));
+                else if (type == short.class) visitor.visitShort((short) accessor.invokeExact((Object) record));
+                else visitor.visitByte((byte) accessor.invokeExact((Object) record));
+            } catch (ConstantError | RuntimeException error) {
+                throw error;
+            } catch (Throwable ex) {
+                throw new ConstantDeconstructionError(ex);
+            }
+            return true;
+        }
+
+        @Override
+        void exit(ConstantVisitor visitor) {
+            visitor.exitConstant(record);
+        }
+
+    }
+
+    private record Component(Class<?> type, MethodHandle accessor) {}
+
+}
@@ -0,0 +1,359 @@
+package org.valross.constantine;
+
+import java.io.Flushable;
+import java.io.IOException;
+import java.lang.constant.Constable;
+import java.lang.invoke.MethodType;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/// Writes constants (and the primitives, strings and enums they are made of) in a compact binary form,
+/// using their [Constant#serial()] and [Constant#canonicalParameters()] decomposition.
+///
+/// Type definitions are written once per stream, and repeated strings and sub-constants are written
+/// as back-references. The output can be read by a [ConstantReader].
+///
+/// A writer can target a [WritableByteChannel] (through an internal buffer, see [#flush()])
+/// or write directly into a [ByteBuffer], in which case a [BufferOverflowException] is thrown if it fills up.
+///
+/// @see Codec
+public final class ConstantWriter implements Flushable {
+
+    private final WritableByteChannel channel;
+    private final ByteBuffer buffer;
+    private final Map<Class<?>, Integer> types = new HashMap<>();
+    private final Map<Object, Integer> references = new HashMap<>(); // by Codec.Reference, or by shape number
+    private final Map<Object, Integer> shapes = new IdentityHashMap<>();
+    private final Map<Shape, Integer> shapeNumbers = new HashMap<>();
+    private final ConstantWriter definitions;
+    private int counter;
+
+    public ConstantWriter(WritableByteChannel channel) {
+        this(channel, 8192);
+    }
+
+    public ConstantWriter(WritableByteChannel channel, int bufferSize) {
+        this(channel, bufferSize, null);
+    }
+
+    /// Creates a writer whose type definitions are written to (and shared with) another writer,
+    /// rather than inline. Only type indices appear in this writer's output.
+    ConstantWriter(WritableByteChannel channel, int bufferSize, ConstantWriter definitions) {
+        if (bufferSize < 16) throw new IllegalArgumentException("Buffer too small: " + bufferSize);
+        this.channel = channel;
+        this.buffer = ByteBuffer.allocate(bufferSize);
+        this.definitions = definitions == null ? this : definitions;
+    }
+
+    public ConstantWriter(ByteBuffer buffer) {
+        this.channel = null;
+        this.buffer = buffer;
+        this.definitions = this;
+    }
+
+    /// Writes a single value: a constant, a Java constable (primitive wrapper, string or enum) or null.
+    ///
+    /// @param value The value to write
+    public void write(Object value) throws IOException {
+        switch (value) {
+            case null -> this.put(Codec.NULL);
+            case Boolean bool -> this.put(bool ? Codec.TRUE : Codec.FALSE);
+            case Integer number -> {
+                this.put(Codec.INT);
+                this.putSigned(number);
+            }
+            case Long number -> {
+                this.put(Codec.LONG);
+                this.putSigned(number);
+            }
+            case Float number -> {
+                this.ensure(5);
+                buffer.put(Codec.FLOAT).putFloat(number);
+            }
+            case Double number -> {
+                this.ensure(9);
+                buffer.put(Codec.DOUBLE).putDouble(number);
+            }
+            case Character character -> {
+                this.put(Codec.CHAR);
+                this.putVarint(character);
+            }
+            case Short number -> {
+                this.put(Codec.SHORT);
+                this.putSigned(number);
+            }
+            case Byte number -> {
+                this.ensure(2);
+                buffer.put(Codec.BYTE).put(number);
+            }
+            case String string -> this.writeString(string);
+            case Enum<?> constant -> {
+                this.put(Codec.ENUM);
+                this.putType(constant.getDeclaringClass(), Codec.KIND_ENUM, null, null);
+                this.putString(constant.name());
+            }
+            case Array array -> this.writeGraph(array);
+            case IntArray array -> this.writePacked(array, Codec.PACKED_INT, array.size(), array.encode());
+            case LongArray array -> this.writePacked(array, Codec.PACKED_LONG, array.size(), array.encode());
+            case DoubleArray array -> this.writePacked(array, Codec.PACKED_DOUBLE, array.size(), array.encode());
+            case ByteArray array -> this.writePacked(array, Codec.PACKED_BYTE, array.size(), array.encode());
+            case Constant constant -> this.writeGraph(constant);
+            case Constantive constantive -> this.write(constantive.constant());
+            default -> throw new ConstantDeconstructionError("Unsupported value type: " + value.getClass());
+        }
+    }
+
+    /// Starts writing an array of a known length, without holding its elements.
+    /// Exactly `length` values must then be [written][#write(Object)] to complete it.
+    ///
+    /// @param length The number of elements that will follow
+    public void beginArray(int length) throws IOException {
+        this.put(Codec.ARRAY);
+        this.putVarint(length);
+        if (length < Codec.STREAMING_THRESHOLD) counter++;
+    }
+
+    /// Forgets every value written so far, so that nothing after this point refers back to it.
+    /// Type definitions are kept.
+    void reset() {
+        this.references.clear();
+        this.shapes.clear();
+        this.shapeNumbers.clear();
+        this.counter = 0;
+    }
+
+    /// @return The number of types defined so far
+    int typeCount() {
+        return definitions.types.size();
+    }
+
+    /// Writes any buffered data to the channel.
+    @Override
+    public void flush() throws IOException {
+        if (channel == null) return;
+        buffer.flip();
+        while (buffer.hasRemaining()) channel.write(buffer);
+        buffer.clear();
+    }
+
+    private void writeString(String string) throws IOException {
+        if (this.putReference(new Codec.Reference(string))) return;
+        this.put(Codec.STRING);
+        this.putString(string);
+        this.references.put(new Codec.Reference(string), counter++);
+    }
+
+    private void writePacked(Constant array, byte kind, int length, byte[] data) throws IOException {
+        if (this.putReference(new Codec.Reference(array))) return;
+        this.ensure(2);
+        buffer.put(Codec.PACKED).put(kind);
+        this.putVarint(length);
+        this.putBytes(data);
+        this.references.put(new Codec.Reference(array), counter++);
+    }
+
+    /// Writes an array or constant, and everything within it, without recursing.
+    private void writeGraph(Constant root) throws IOException {
+        final Map<Constant, Constable[]> serials = new IdentityHashMap<>();
+        this.number(root, serials);
+        final Deque<Frame> pending = new ArrayDeque<>();
+        this.begin(root, serials, pending);
+        while (!pending.isEmpty()) {
+            final Frame frame = pending.peek();
+            if (frame.next < frame.parts.size()) {
+                final Object part = unwrap(frame.parts.get(frame.next++));
+                if (isGraph(part)) this.begin((Constant) part, serials, pending);
+                else this.write(part);
+                continue;
+            }
+            pending.pop();
+            if (frame.id >= 0) this.references.put(shapes.get(frame.constant), frame.id);
+        }
+    }
+
+    /// Writes the start of an array or constant (or a back-reference to an equal one), pushing its frame if
+    /// its parts are to follow.
+    private void begin(Constant constant, Map<Constant, Constable[]> serials, Deque<Frame> pending)
+        throws IOException {
+        final boolean referable = !(constant instanceof Array array) || array.size() < Codec.STREAMING_THRESHOLD;
+        if (referable && this.putReference(shapes.get(constant))) return;
+        final List<?> parts;
+        if (constant instanceof Array array) {
+            this.put(Codec.ARRAY);
+            this.putVarint(array.size());
+            parts = array;
+        } else {
+            final Class<?> type = constant.getClass();
+            this.put(Codec.CONSTANT);
+            if (constant instanceof Canonical<?> canonical)
+                this.putType(type, Codec.KIND_FACTORY, canonical.factoryMethodName(),
+                    MethodType.methodType(type, constant.canonicalParameters()));
+            else this.putType(type, Codec.KIND_CONSTRUCTOR, null,
+                MethodType.methodType(void.class, constant.canonicalParameters()));
+            parts = Arrays.asList(serials.computeIfAbsent(constant, Utilities::serial));
+        }
+        pending.push(new Frame(constant, parts, referable ? counter++ : -1));
+    }
+
+    /// Numbers every array and constant in a graph by its shape (its type and the numbers or values of its
+    /// parts), so that equal values have equal numbers. Each is hashed once, rather than once per ancestor.
+    private void number(Constant root, Map<Constant, Constable[]> serials) {
+        if (shapes.containsKey(root)) return;
+        final Deque<Frame> pending = new ArrayDeque<>();
+        pending.push(this.frame(root, serials));
+        while (!pending.isEmpty()) {
+            final Frame frame = pending.peek();
+            if (frame.next < frame.parts.size()) {
+                final Object part = unwrap(frame.parts.get(frame.next));
+                if (isGraph(part)) {
+                    final Integer number = shapes.get(part);
+                    if (number == null) {
+                        pending.push(this.frame((Constant) part, serials));
+                        continue;
+                    }
+                    frame.keys[frame.next++] = number;
+                } else frame.keys[frame.next++] = part == null ? null : new Codec.Reference(part);
+                continue;
+            }
+            pending.pop();
+            final Shape shape = new Shape(frame.constant.getClass(), frame.keys);
+            Integer number = shapeNumbers.get(shape);
+            if (number == null) shapeNumbers.put(shape, number = shapeNumbers.size());
+            this.shapes.put(frame.constant, number);
+            if (!pending.isEmpty()) pending.peek().keys[pending.peek().next++] = number;
+        }
+    }
+
+    private Frame frame(Constant constant, Map<Constant, Constable[]> serials) {
+        final List<?> parts = constant instanceof Array array ? array
+            : Arrays.asList(serials.computeIfAbsent(constant, Utilities::serial));
+        final Frame frame = new Frame(constant, parts, -1);
+        frame.keys = new Object[parts.size()];
+        return frame;
+    }
+
+    private static Object unwrap(Object value) {
+        return value instanceof Constantive constantive && !(value instanceof Constant) ? constantive.constant()
+            : value;
+    }
+
+    /// @return Whether a value is written as a (possibly nested) array or constant
+    private static boolean isGraph(Object value) {
+        return value instanceof Array || value instanceof Constant && !Utilities.isLeaf(value);
+    }
+
+    private boolean putReference(Object key) throws IOException {
+        final Integer id = references.get(key);
+        if (id == null) return false;
+        this.put(Codec.REFERENCE);
+        this.putVarint(id);
+        return true;
+    }
+
+    private void putType(Class<?> type, byte kind, String factory, MethodType signature) throws IOException {
+        final Map<Class<?>, Integer> types = definitions.types;
+        final Integer index = types.get(type);
+        if (index != null) {
+            this.putVarint(index);
+            return;
+        }
+        final int size = types.size();
+        types.put(type, size);
+        this.putVarint(size);
+        this.definitions.putDefinition(type, kind, factory, signature);
+    }
+
+    private void putDefinition(Class<?> type, byte kind, String factory, MethodType signature) throws IOException {
+        this.put(kind);
+        this.putString(type.getName());
+        if (kind == Codec.KIND_FACTORY) this.putString(factory);
+        if (kind != Codec.KIND_ENUM) this.putString(signature.toMethodDescriptorString());
+    }
+
+    private void putString(String string) throws IOException {
+        final byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+        this.putVarint(bytes.length);
+        this.putBytes(bytes);
+    }
+
+    private void putBytes(byte[] bytes) throws IOException {
+        int offset = 0;
+        while (offset < bytes.length) {
+            if (!buffer.hasRemaining()) this.ensure(1);
+            final int length = Math.min(buffer.remaining(), bytes.length - offset);
+            buffer.put(bytes, offset, length);
+            offset += length;
+        }
+    }
+
+    private void putSigned(long value) throws IOException {
+        this.putVarint((value << 1) ^ (value >> 63));
+    }
+
+    private void putVarint(long value) throws IOException {
+        this.ensure((64 - Long.numberOfLeadingZeros(value | 1) + 6) / 7);
+        while ((value & ~0x7FL) != 0) {
+            buffer.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        buffer.put((byte) value);
+    }
+
+    private void put(byte value) throws IOException {
+        this.ensure(1);
+        buffer.put(value);
+    }
+
+    private void ensure(int bytes) throws IOException {
+        if (buffer.remaining() >= bytes) return;
+        if (channel == null) throw new BufferOverflowException();
+        this.flush();
+    }
+
+    /// An array or constant whose parts are being numbered or written.
+    private static final class Frame {
+
+        final Constant constant;
+        final List<?> parts;
+        final int id;
+        Object[] keys;
+        int next;
+
+        Frame(Constant constant, List<?> parts, int id) {
+            this.constant = constant;
+            this.parts = parts;
+            this.id = id;
+        }
+
+    }
+
+    /// The type of an array or constant and the keys of its parts: the shape number of each array or constant
+    /// part, and a [Codec.Reference] to each other part.
+    private static final class Shape {
+
+        private final Class<?> type;
+        private final Object[] keys;
+        private final int hash;
+
+        Shape(Class<?> type, Object[] keys) {
+            this.type = type;
+            this.keys = keys;
+            this.hash = 31 * type.hashCode() + Arrays.hashCode(keys);
+        }
+
+        @Override
+        public boolean equals(Object object) {
+            return object instanceof Shape shape && shape.type == type && Arrays.equals(shape.keys, keys);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+    }
+
+}
@@ -0,0 +1,158 @@
+package org.valross.constantine;
+
+import java.lang.constant.Constable;
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.*;
+
+/// Deduplicates (hash-conses) constant graphs: [#deduplicate(Object)] returns an equal graph in which
+/// structurally equal sub-constants are the same instance.
+///
+/// The graph is walked through each constant's serial and rebuilt bottom-up, through the canonical constructor
+/// (or factory) of each constant whose parts changed. Constants whose parts were already deduplicated are kept as
+/// they are, unless an equal constant is already known.
+///
+/// A deduplicator remembers every (reachable) constant it has returned, so keeping one for a long time lets
+/// newly loaded data share nodes with data that is already resident. A constant is remembered only as long as
+/// it is reachable from elsewhere.
+///
+/// Since the parts of a constant are deduplicated before the constant itself, two constants are matched by
+/// their type and the identity of their parts, so matching never calls `equals` or `hashCode` on a constant
+/// (which could be as expensive as the graph is deep).
+/// Values that are not broken down further (strings, numbers, enums, packed primitive arrays)
+/// are matched by equality.
+///
+/// Deduplicators are thread-safe.
+public final class Deduplicator {
+
+    private final Canonical.Pool<Object> leaves = new Canonical.Pool<>();
+    private final Map<Shape, Node> nodes = new HashMap<>();
+    private final ReferenceQueue<Object> queue = new ReferenceQueue<>();
+
+    /// Deduplicates a constant graph.
+    ///
+    /// @param value The root of the graph
+    /// @return An equal graph, sharing structurally equal parts with itself and with graphs deduplicated before
+    @SuppressWarnings("unchecked")
+    public <Type> Type deduplicate(Type value) {
+        if (value == null) return null;
+        if (Utilities.isLeaf(value)) return (Type) leaves.intern(value);
+        final Map<Object, Object> done = new IdentityHashMap<>();
+        final Deque<Frame> pending = new ArrayDeque<>();
+        pending.push(new Frame((Constant) value, Utilities.serial((Constant) value)));
+        while (!pending.isEmpty()) {
+            final Frame frame = pending.peek();
+            if (frame.next < frame.serial.length) {
+                final Constable part = frame.serial[frame.next];
+                final Object known = part == null ? null : done.get(part);
+                if (part == null) frame.parts[frame.next++] = null;
+                else if (known != null) frame.parts[frame.next++] = (Constable) known;
+                else if (Utilities.isLeaf(part)) {
+                    final Object leaf = leaves.intern(part);
+                    done.put(part, leaf);
+                    frame.parts[frame.next++] = (Constable) leaf;
+                } else pending.push(new Frame((Constant) part, Utilities.serial((Constant) part)));
+                continue;
+            }
+            pending.pop();
+            done.put(frame.constant, this.node(frame));
+        }
+        return (Type) done.get(value);
+    }
+
+    /// @return The number of distinct constants currently remembered (not including strings, numbers etc.)
+    public int size() {
+        synchronized (nodes) {
+            this.expunge();
+            return nodes.size();
+        }
+    }
+
+    private Object node(Frame frame) {
+        final Constant constant = frame.constant;
+        final Shape shape = new Shape(constant.getClass(), frame.parts);
+        synchronized (nodes) {
+            this.expunge();
+            final Node node = nodes.get(shape);
+            final Object existing = node == null ? null : node.get();
+            if (existing != null) return existing;
+        }
+        Object result = constant;
+        if (!Arrays.equals(frame.parts, frame.serial, (first, second) -> first == second ? 0 : 1))
+            result = Utilities.rebuild(constant, frame.parts);
+        if (result instanceof Canonical<?> canonical) result = canonical.intern();
+        synchronized (nodes) {
+            final Node node = nodes.get(shape);
+            final Object existing = node == null ? null : node.get();
+            if (existing != null) return existing; // another thread got here first
+            nodes.put(shape, new Node(result, shape, queue));
+        }
+        return result;
+    }
+
+    private void expunge() {
+        for (Reference<?> cleared; (cleared = queue.poll()) != null; ) {
+            final Node node = (Node) cleared;
+            nodes.remove(node.shape, node);
+        }
+    }
+
+    /// A constant being deduplicated, and how many of its parts have been.
+    private static final class Frame {
+
+        final Constant constant;
+        final Constable[] serial, parts;
+        int next;
+
+        Frame(Constant constant, Constable[] serial) {
+            this.constant = constant;
+            this.serial = serial;
+            this.parts = new Constable[serial.length];
+        }
+
+    }
+
+    /// The type of a constant and its (deduplicated) parts, compared by identity.
+    private static final class Shape {
+
+        private final Class<?> type;
+        private final Object[] parts;
+        private final int hash;
+
+        Shape(Class<?> type, Object[] parts) {
+            this.type = type;
+            this.parts = parts;
+            int hash = type.hashCode();
+            for (Object part : parts) hash = 31 * hash + System.identityHashCode(part);
+            this.hash = hash;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Shape shape) || shape.type != type || shape.parts.length != parts.length) return false;
+            for (int i = 0; i < parts.length; i++) if (parts[i] != shape.parts[i]) return false;
+            return true;
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+    }
+
+    /// A remembered constant, which is forgotten once the constant is no longer reachable.
+    private static final class Node extends WeakReference<Object> {
+
+        final Shape shape;
+
+        Node(Object referent, Shape shape, ReferenceQueue<Object> queue) {
+            super(referent, queue);
+            this.shape = shape;
+        }
+
+    }
+
+}
@@ -0,0 +1,38 @@
+package org.valross.constantine;
+
+import java.lang.constant.ConstantDesc;
+import java.util.Optional;
+import java.util.function.Function;
+
+/// Remembers the description of each constant instance, for as long as that instance is reachable.
+///
+/// Since a constant cannot change, neither can its description, so each instance is described at most once
+/// (barring a race between two threads describing it at the same time, which is harmless).
+final class DescriptionCache {
+
+    private static final InstanceCache<Optional<? extends ConstantDesc>> CACHE = new InstanceCache<>();
+
+    private DescriptionCache() {
+    }
+
+    /// @param constant  The constant to describe
+    /// @param describer Describes the constant, if it has not been described before
+    /// @return The (remembered) description
+    static <Type extends Constant> Optional<? extends ConstantDesc> describe(
+        Type constant, Function<Type, Optional<? extends ConstantDesc>> describer) {
+        final Optional<? extends ConstantDesc> known = CACHE.get(constant);
+        Metrics.described(known != null);
+        if (known != null) return known;
+        final Events.DescribeEvent event = new Events.DescribeEvent();
+        event.begin();
+        final Optional<? extends ConstantDesc> description = describer.apply(constant);
+        event.end();
+        if (event.shouldCommit()) {
+            event.type = constant.getClass();
+            event.commit();
+        }
+        CACHE.put(constant, description);
+        return description;
+    }
+
+}
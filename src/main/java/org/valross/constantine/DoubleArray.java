@@ -0,0 +1,106 @@
+package org.valross.constantine;
+
+import java.lang.constant.Constable;
+import java.lang.constant.ConstantDesc;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Optional;
+import java.util.stream.DoubleStream;
+
+/// A constant (frozen) array of `double`s.
+///
+/// Unlike an [Array] of boxed values, the contents are stored unboxed.
+/// The array describes itself as a single packed payload, rather than one descriptor per element.
+public final class DoubleArray implements Constant, Cloneable {
+
+    private final double[] values;
+
+    public DoubleArray(double... values) {
+        this(Arrays.copyOf(values, values.length), false);
+    }
+
+    private DoubleArray(double[] values, boolean ignored) {
+        this.values = values;
+    }
+
+    static DoubleArray decode(ByteBuffer buffer) {
+        final double[] values = new double[buffer.remaining() / Double.BYTES];
+        buffer.asDoubleBuffer().get(values);
+        return new DoubleArray(values, false);
+    }
+
+    byte[] encode() {
+        final ByteBuffer buffer = ByteBuffer.allocate(values.length * Double.BYTES);
+        buffer.asDoubleBuffer().put(values);
+        return buffer.array();
+    }
+
+    @Override
+    public Constable[] serial() {
+        final Constable[] boxed = new Constable[values.length];
+        for (int i = 0; i < values.length; i++) boxed[i] = values[i];
+        return new Constable[] {new Array(boxed)};
+    }
+
+    @Override
+    public Class<?>[] canonicalParameters() {
+        return new Class[] {double[].class};
+    }
+
+    @Override
+    public DoubleArray constant() {
+        return this;
+    }
+
+    @Override
+    public Optional<? extends ConstantDesc> describeConstable() {
+        return Optional.of(Utilities.describePacked(DoubleArray.class, this.encode()));
+    }
+
+    public int size() {
+        return values.length;
+    }
+
+    public boolean isEmpty() {
+        return values.length == 0;
+    }
+
+    public double get(int index) {
+        return values[index];
+    }
+
+    public boolean contains(double value) {
+        for (double element : values) if (Double.compare(element, value) == 0) return true;
+        return false;
+    }
+
+    public DoubleStream stream() {
+        return Arrays.stream(values);
+    }
+
+    public double[] toArray() {
+        return Arrays.copyOf(values, values.length);
+    }
+
+    @Override
+    public DoubleArray clone() {
+        return new DoubleArray(values, false);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        return o instanceof DoubleArray array && Arrays.equals(values, array.values);
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(values);
+    }
+
+    @Override
+    public String toString() {
+        return "DoubleArray" + Arrays.toString(values);
+    }
+
+}
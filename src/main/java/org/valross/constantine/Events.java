@@ -0,0 +1,169 @@
+package org.valross.constantine;
+
+import jdk.jfr.*;
+
+/// Flight recorder events for constant operations, and the hooks that record them (and count them in [Metrics]).
+///
+/// Each hook creates its event unconditionally: when no recording has the event enabled,
+/// `begin`, `end` and `commit` do nothing and the (unescaped) event is never actually allocated.
+/// The event's fields are only filled in when it will be committed.
+final class Events {
+
+    static final String CATEGORY = "Constantine";
+
+    private Events() {
+    }
+
+    static void error(ConstantError error) {
+        Metrics.failed();
+        final ErrorEvent event = new ErrorEvent();
+        if (!event.shouldCommit()) return;
+        event.type = error.getClass();
+        event.message = error.getMessage();
+        event.commit();
+    }
+
+    static void interned(Object value, boolean hit) {
+        Metrics.interned(hit);
+        final InternEvent event = new InternEvent();
+        if (!event.shouldCommit()) return;
+        event.type = value.getClass();
+        event.hit = hit;
+        event.commit();
+    }
+
+    @Name("org.valross.constantine.Bootstrap")
+    @Label("Constant Bootstrap")
+    @Description("A constant built from its description by a bootstrap method")
+    @Category(CATEGORY)
+    @StackTrace(false)
+    static final class BootstrapEvent extends Event {
+
+        @Label("Type")
+        Class<?> type;
+        @Label("Kind")
+        @Description("The bootstrap method used: constructor, canonical, array, packed, map or set")
+        String kind;
+        private transient long start;
+
+        static BootstrapEvent start() {
+            final BootstrapEvent event = new BootstrapEvent();
+            event.start = Metrics.start();
+            event.begin();
+            return event;
+        }
+
+        <Value> Value finish(Class<?> type, String kind, Value result) {
+            this.end();
+            if (this.shouldCommit()) {
+                this.type = type;
+                this.kind = kind;
+                this.commit();
+            }
+            Metrics.bootstrapped(start);
+            return result;
+        }
+
+    }
+
+    @Name("org.valross.constantine.Describe")
+    @Label("Constant Description")
+    @Description("A constant described for the first time")
+    @Category(CATEGORY)
+    @Enabled(false)
+    static final class DescribeEvent extends Event {
+
+        @Label("Type")
+        Class<?> type;
+
+    }
+
+    @Name("org.valross.constantine.Validate")
+    @Label("Constant Validation")
+    @Category(CATEGORY)
+    @StackTrace(false)
+    static final class ValidateEvent extends Event {
+
+        @Label("Type")
+        Class<?> type;
+        @Label("Valid")
+        boolean valid;
+
+        static ValidateEvent start() {
+            final ValidateEvent event = new ValidateEvent();
+            event.begin();
+            return event;
+        }
+
+        boolean finish(Class<?> type, boolean valid) {
+            this.end();
+            if (this.shouldCommit()) {
+                this.type = type;
+                this.valid = valid;
+                this.commit();
+            }
+            Metrics.validated();
+            return valid;
+        }
+
+    }
+
+    @Name("org.valross.constantine.Serial")
+    @Label("Record Deconstruction")
+    @Description("A record constant deconstructed into its serial by reflection")
+    @Category(CATEGORY)
+    @Enabled(false)
+    @StackTrace(false)
+    static final class SerialEvent extends Event {
+
+        @Label("Type")
+        Class<?> type;
+        private transient long start;
+
+        static SerialEvent start() {
+            final SerialEvent event = new SerialEvent();
+            event.start = Metrics.start();
+            event.begin();
+            return event;
+        }
+
+        <Value> Value finish(Class<?> type, Value serial) {
+            this.end();
+            if (this.shouldCommit()) {
+                this.type = type;
+                this.commit();
+            }
+            Metrics.serialized(start);
+            return serial;
+        }
+
+    }
+
+    @Name("org.valross.constantine.Error")
+    @Label("Constant Error")
+    @Category(CATEGORY)
+    static final class ErrorEvent extends Event {
+
+        @Label("Error Type")
+        Class<?> type;
+        @Label("Message")
+        String message;
+
+    }
+
+    @Name("org.valross.constantine.Intern")
+    @Label("Constant Interning")
+    @Category(CATEGORY)
+    @Enabled(false)
+    @StackTrace(false)
+    static final class InternEvent extends Event {
+
+        @Label("Type")
+        Class<?> type;
+        @Label("Hit")
+        @Description("Whether an existing instance was returned")
+        boolean hit;
+
+    }
+
+}
@@ -0,0 +1,236 @@
+package org.valross.constantine;
+
+import java.lang.constant.*;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+
+/// A stable, 128-bit structural fingerprint of a constant.
+///
+/// Unlike `hashCode`, a fingerprint is the same in every process (and on every platform),
+/// so equal fingerprints can be used to tell that two processes hold the same constant without sending it,
+/// or as a content-addressed key.
+///
+/// Fingerprints are defined recursively (as a Merkle tree), from the first 128 bits of a SHA-256 digest:
+///   - the fingerprint of a constant covers its class name, its canonical parameter types and the fingerprint
+///     of each part of its serial, in order
+///   - the elements of a [ConstantSet] (and the entries of a [ConstantMap]) are taken in fingerprint order,
+///     so their fingerprints do not depend on hash order
+///   - other values (strings, numbers, enums, packed primitive arrays) are fingerprinted by their binary value
+///   - anything else (e.g. a class or method type) is fingerprinted by the structure of its description,
+///     or cannot be fingerprinted if its description is not one of the JDK's
+///
+/// Equal constants therefore have equal fingerprints, and an array has the same fingerprint as any
+/// (equal) slice or concatenation. The fingerprint of each constant in a graph is remembered for as long as
+/// the constant is reachable, so fingerprinting it again (or anything containing it) costs only the new parts.
+///
+/// @param high The first 64 bits
+/// @param low  The last 64 bits
+public record Fingerprint(long high, long low) implements RecordConstant, Comparable<Fingerprint> {
+
+    private static final InstanceCache<Fingerprint> CACHE = new InstanceCache<>();
+    private static final byte DESCRIBED = -1, SEPARATOR = 0;
+    private static final byte CLASS = -2, METHOD_TYPE = -3, METHOD_HANDLE = -4, DYNAMIC = -5;
+
+    /// Fingerprints a value.
+    ///
+    /// @param value A constant, or any other constable (which may be null)
+    /// @return Its fingerprint
+    public static Fingerprint of(Constable value) {
+        final MessageDigest digest = digest();
+        if (!(value instanceof Constant constant) || Utilities.isLeaf(value)) return leaf(digest, value);
+        final Fingerprint known = CACHE.get(constant);
+        if (known != null) return known;
+        final Deque<Frame> pending = new ArrayDeque<>();
+        pending.push(new Frame(constant));
+        while (true) {
+            final Frame frame = pending.peek();
+            if (frame.next < frame.serial.length) {
+                final Constable part = frame.serial[frame.next];
+                if (!(part instanceof Constant child) || Utilities.isLeaf(part))
+                    frame.parts[frame.next++] = leaf(digest, part);
+                else {
+                    final Fingerprint cached = CACHE.get(child);
+                    if (cached != null) frame.parts[frame.next++] = cached;
+                    else pending.push(new Frame(child));
+                }
+                continue;
+            }
+            pending.pop();
+            final Fingerprint fingerprint = frame.finish(digest);
+            CACHE.put(frame.constant, fingerprint);
+            final Frame parent = pending.peek();
+            if (parent == null) return fingerprint;
+            parent.parts[parent.next++] = fingerprint;
+        }
+    }
+
+    /// @param text The 32 hexadecimal digits of a fingerprint, as given by [#toString()]
+    /// @return The fingerprint
+    public static Fingerprint parse(CharSequence text) {
+        if (text.length() != 32) throw new IllegalArgumentException("Not a fingerprint: " + text);
+        return new Fingerprint(Long.parseUnsignedLong(text, 0, 16, 16), Long.parseUnsignedLong(text, 16, 32, 16));
+    }
+
+    private static MessageDigest digest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException(ex); // every platform must support SHA-256
+        }
+    }
+
+    private static Fingerprint finish(MessageDigest digest) {
+        final ByteBuffer hash = ByteBuffer.wrap(digest.digest());
+        return new Fingerprint(hash.getLong(), hash.getLong());
+    }
+
+    private static void update(MessageDigest digest, String text) {
+        digest.update(text.getBytes(StandardCharsets.UTF_8));
+        digest.update(SEPARATOR);
+    }
+
+    private static Fingerprint leaf(MessageDigest digest, Constable value) {
+        final ByteBuffer buffer = ByteBuffer.allocate(Long.BYTES + 1);
+        switch (value) {
+            case null -> buffer.put(Codec.NULL);
+            case Boolean bool -> buffer.put(bool ? Codec.TRUE : Codec.FALSE);
+            case Integer number -> buffer.put(Codec.INT).putInt(number);
+            case Long number -> buffer.put(Codec.LONG).putLong(number);
+            case Float number -> buffer.put(Codec.FLOAT).putInt(Float.floatToIntBits(number));
+            case Double number -> buffer.put(Codec.DOUBLE).putLong(Double.doubleToLongBits(number));
+            case Character character -> buffer.put(Codec.CHAR).putChar(character);
+            case Short number -> buffer.put(Codec.SHORT).putShort(number);
+            case Byte number -> buffer.put(Codec.BYTE).put(number);
+            case String string -> {
+                digest.update(Codec.STRING);
+                digest.update(string.getBytes(StandardCharsets.UTF_8));
+            }
+            case Enum<?> constant -> {
+                digest.update(Codec.ENUM);
+                update(digest, constant.getDeclaringClass().getName());
+                update(digest, constant.name());
+            }
+            case IntArray array -> packed(digest, Codec.PACKED_INT, array.encode());
+            case LongArray array -> packed(digest, Codec.PACKED_LONG, array.encode());
+            case DoubleArray array -> packed(digest, Codec.PACKED_DOUBLE, array.encode());
+            case ByteArray array -> packed(digest, Codec.PACKED_BYTE, array.encode());
+            default -> {
+                digest.update(DESCRIBED);
+                described(digest, Utilities.describe(value), value);
+            }
+        }
+        digest.update(buffer.array(), 0, buffer.position());
+        return finish(digest);
+    }
+
+    /// Digests the structure of a description: the JDK's descriptions have no stable text form to rely on.
+    ///
+    /// @throws ConstantDeconstructionError if the description is of an unknown kind
+    private static void described(MessageDigest digest, ConstantDesc description, Constable value) {
+        switch (description) {
+            case String string -> {
+                digest.update(Codec.STRING);
+                update(digest, string);
+            }
+            case Integer number -> digest.update(ByteBuffer.allocate(5).put(Codec.INT).putInt(number).array());
+            case Long number -> digest.update(ByteBuffer.allocate(9).put(Codec.LONG).putLong(number).array());
+            case Float number -> digest.update(ByteBuffer.allocate(5).put(Codec.FLOAT)
+                .putInt(Float.floatToIntBits(number)).array());
+            case Double number -> digest.update(ByteBuffer.allocate(9).put(Codec.DOUBLE)
+                .putLong(Double.doubleToLongBits(number)).array());
+            case ClassDesc type -> {
+                digest.update(CLASS);
+                update(digest, type.descriptorString());
+            }
+            case MethodTypeDesc type -> {
+                digest.update(METHOD_TYPE);
+                update(digest, type.descriptorString());
+            }
+            case DirectMethodHandleDesc handle -> {
+                digest.update(METHOD_HANDLE);
+                update(digest, handle.kind().name());
+                update(digest, handle.owner().descriptorString());
+                update(digest, handle.methodName());
+                update(digest, handle.lookupDescriptor());
+            }
+            case DynamicConstantDesc<?> dynamic -> {
+                digest.update(DYNAMIC);
+                described(digest, dynamic.bootstrapMethod(), value);
+                update(digest, dynamic.constantName());
+                update(digest, dynamic.constantType().descriptorString());
+                digest.update(ByteBuffer.allocate(Integer.BYTES).putInt(dynamic.bootstrapArgs().length).array());
+                for (ConstantDesc argument : dynamic.bootstrapArgs()) described(digest, argument, value);
+            }
+            case null, default -> throw new ConstantDeconstructionError("Unable to fingerprint " + value);
+        }
+    }
+
+    private static void packed(MessageDigest digest, byte kind, byte[] data) {
+        digest.update(Codec.PACKED);
+        digest.update(kind);
+        digest.update(data);
+    }
+
+    /// @return The 16 bytes of this fingerprint, most significant first
+    public byte[] toByteArray() {
+        return ByteBuffer.allocate(16).putLong(high).putLong(low).array();
+    }
+
+    @Override
+    public int compareTo(Fingerprint other) {
+        final int comparison = Long.compareUnsigned(high, other.high);
+        return comparison != 0 ? comparison : Long.compareUnsigned(low, other.low);
+    }
+
+    /// @return The 32 hexadecimal digits of this fingerprint
+    @Override
+    public String toString() {
+        return "%016x%016x".formatted(high, low);
+    }
+
+    /// A constant being fingerprinted, and the fingerprints of its parts so far.
+    private static final class Frame {
+
+        final Constant constant;
+        final Constable[] serial;
+        final Fingerprint[] parts;
+        final int group; // the size of each unordered group of parts (an element or entry), or 0 if ordered
+        int next;
+
+        Frame(Constant constant) {
+            this.constant = constant;
+            final Constable[] serial = Utilities.serial(constant);
+            if (constant instanceof ConstantMap<?, ?> || constant instanceof ConstantSet<?>) {
+                this.serial = ((Array) serial[0]).toArray();
+                this.group = constant instanceof ConstantMap<?, ?> ? 2 : 1;
+            } else {
+                this.serial = serial;
+                this.group = 0;
+            }
+            this.parts = new Fingerprint[this.serial.length];
+        }
+
+        Fingerprint finish(MessageDigest digest) {
+            digest.update(Codec.CONSTANT);
+            update(digest, constant.getClass().getName());
+            for (Class<?> parameter : constant.canonicalParameters()) update(digest, parameter.getName());
+            digest.update(SEPARATOR);
+            final List<Fingerprint[]> groups = new ArrayList<>();
+            if (group == 0) groups.add(parts);
+            else {
+                for (int i = 0; i < parts.length; i += group) groups.add(Arrays.copyOfRange(parts, i, i + group));
+                groups.sort(Arrays::compare);
+            }
+            final ByteBuffer buffer = ByteBuffer.allocate(Integer.BYTES + parts.length * 16).putInt(parts.length);
+            for (Fingerprint[] fingerprints : groups)
+                for (Fingerprint fingerprint : fingerprints) buffer.putLong(fingerprint.high).putLong(fingerprint.low);
+            digest.update(buffer.array());
+            return Fingerprint.finish(digest);
+        }
+
+    }
+
+}
@@ -0,0 +1,331 @@
+package org.valross.constantine;
+
+import java.io.Serial;
+import java.io.Serializable;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.function.BiConsumer;
+import java.util.function.BiFunction;
+
+/// A persistent hash array mapped trie of (non-null) keys and values, backing [ConstantMap] and [ConstantSet].
+///
+/// Each level of the trie consumes five bits of a key's hash, and holds only the branches that are present
+/// (selected by a bitmap), so a trie of `n` keys is at most `log32(n)` levels deep in practice.
+/// Deriving a trie with an entry added or removed copies only the path to that entry;
+/// everything else is shared with the original.
+///
+/// Keys whose (full) hashes are equal are kept together in a collision node.
+final class HashTrie implements Serializable {
+
+    static final HashTrie EMPTY = new HashTrie(null, 0);
+    private static final int BITS = 5, MASK = (1 << BITS) - 1, DEPTH = 8;
+    private static final Object MISSING = new Object();
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    private final Node root;
+    private final int size;
+
+    private HashTrie(Node root, int size) {
+        this.root = root;
+        this.size = size;
+    }
+
+    /// Builds a trie from an array of entries.
+    ///
+    /// @param entries The entries, as alternating keys and values if `pairs`, otherwise keys that are their own values
+    static HashTrie of(Object[] entries, boolean pairs) {
+        HashTrie trie = EMPTY;
+        if (pairs) {
+            if (entries.length % 2 != 0) throw new IllegalArgumentException("Expected keys and values in pairs");
+            for (int i = 0; i < entries.length; i += 2) trie = trie.with(entries[i], entries[i + 1]);
+        } else for (Object entry : entries) trie = trie.with(entry, entry);
+        return trie;
+    }
+
+    private static int hash(Object key) {
+        final int hash = key.hashCode();
+        return hash ^ (hash >>> 16);
+    }
+
+    private static int bit(int hash, int shift) {
+        return 1 << ((hash >>> shift) & MASK);
+    }
+
+    /// @return a node holding two different keys, branching wherever their hashes first differ
+    private static Node pair(int shift, int firstHash, Object firstKey, Object firstValue,
+                             int secondHash, Object secondKey, Object secondValue) {
+        if (firstHash == secondHash)
+            return new Collision(firstHash, new Object[] {firstKey, firstValue, secondKey, secondValue});
+        final int first = bit(firstHash, shift), second = bit(secondHash, shift);
+        if (first == second) return new Bitmap(first, new Object[] {null,
+            pair(shift + BITS, firstHash, firstKey, firstValue, secondHash, secondKey, secondValue)});
+        if (Integer.compareUnsigned(first, second) < 0)
+            return new Bitmap(first | second, new Object[] {firstKey, firstValue, secondKey, secondValue});
+        return new Bitmap(first | second, new Object[] {secondKey, secondValue, firstKey, firstValue});
+    }
+
+    int size() {
+        return size;
+    }
+
+    /// @return the value of a key, or null if it is absent
+    Object get(Object key) {
+        if (root == null || key == null) return null;
+        final Object value = root.find(0, hash(key), key);
+        return value == MISSING ? null : value;
+    }
+
+    boolean containsKey(Object key) {
+        return root != null && key != null && root.find(0, hash(key), key) != MISSING;
+    }
+
+    HashTrie with(Object key, Object value) {
+        Objects.requireNonNull(key, "key");
+        Objects.requireNonNull(value, "value");
+        final int hash = hash(key);
+        if (root == null) return new HashTrie(new Bitmap(bit(hash, 0), new Object[] {key, value}), 1);
+        final boolean[] added = new boolean[1];
+        final Node node = root.with(0, hash, key, value, added);
+        if (node == root) return this;
+        return new HashTrie(node, added[0] ? size + 1 : size);
+    }
+
+    HashTrie without(Object key) {
+        if (root == null || key == null) return this;
+        final Node node = root.without(0, hash(key), key);
+        if (node == root) return this;
+        return node == null ? EMPTY : new HashTrie(node, size - 1);
+    }
+
+    void forEach(BiConsumer<Object, Object> action) {
+        if (root != null) root.forEach(action);
+    }
+
+    /// Iterates the entries, without building any intermediate collection.
+    ///
+    /// @param mapper A function making an element from each key and value
+    /// @return An iterator over the mapped entries
+    <Type> Iterator<Type> iterator(BiFunction<Object, Object, ? extends Type> mapper) {
+        return new Iterator<>() {
+            private final Object[][] arrays = new Object[DEPTH][];
+            private final int[] positions = new int[DEPTH];
+            private int depth = root == null ? -1 : 0;
+            private Object key, value;
+            private boolean ready;
+
+            {
+                if (root != null) arrays[0] = root.array;
+                this.ready = this.advance();
+            }
+
+            private boolean advance() {
+                while (depth >= 0) {
+                    final Object[] array = arrays[depth];
+                    final int position = positions[depth];
+                    if (position >= array.length) {
+                        depth--;
+                        continue;
+                    }
+                    positions[depth] = position + 2;
+                    if (array[position] == null) {
+                        arrays[++depth] = ((Node) array[position + 1]).array;
+                        positions[depth] = 0;
+                        continue;
+                    }
+                    this.key = array[position];
+                    this.value = array[position + 1];
+                    return true;
+                }
+                return false;
+            }
+
+            @Override
+            public boolean hasNext() {
+                return ready;
+            }
+
+            @Override
+            public Type next() {
+                if (!ready) throw new NoSuchElementException();
+                final Type next = mapper.apply(key, value);
+                this.ready = this.advance();
+                return next;
+            }
+        };
+    }
+
+    /// A node's array holds pairs of slots: a key and its value, or (in a bitmap node) null and a child node.
+    private abstract static sealed class Node implements Serializable permits Bitmap, Collision {
+
+        @Serial
+        private static final long serialVersionUID = 1L;
+
+        final Object[] array;
+
+        Node(Object[] array) {
+            this.array = array;
+        }
+
+        abstract Object find(int shift, int hash, Object key);
+
+        abstract Node with(int shift, int hash, Object key, Object value, boolean[] added);
+
+        /// @return the node without the key, this node if it did not have the key, or null if it is now empty
+        abstract Node without(int shift, int hash, Object key);
+
+        void forEach(BiConsumer<Object, Object> action) {
+            for (int i = 0; i < array.length; i += 2) {
+                if (array[i] == null) ((Node) array[i + 1]).forEach(action);
+                else action.accept(array[i], array[i + 1]);
+            }
+        }
+
+        Object[] replace(int index, Object value) {
+            final Object[] array = this.array.clone();
+            array[index] = value;
+            return array;
+        }
+
+    }
+
+    private static final class Bitmap extends Node {
+
+        @Serial
+        private static final long serialVersionUID = 1L;
+
+        private final int bitmap;
+
+        Bitmap(int bitmap, Object[] array) {
+            super(array);
+            this.bitmap = bitmap;
+        }
+
+        private int index(int bit) {
+            return Integer.bitCount(bitmap & (bit - 1)) * 2;
+        }
+
+        @Override
+        Object find(int shift, int hash, Object key) {
+            final int bit = bit(hash, shift);
+            if ((bitmap & bit) == 0) return MISSING;
+            final int index = this.index(bit);
+            final Object existing = array[index];
+            if (existing == null) return ((Node) array[index + 1]).find(shift + BITS, hash, key);
+            return existing.equals(key) ? array[index + 1] : MISSING;
+        }
+
+        @Override
+        Node with(int shift, int hash, Object key, Object value, boolean[] added) {
+            final int bit = bit(hash, shift), index = this.index(bit);
+            if ((bitmap & bit) == 0) {
+                added[0] = true;
+                final Object[] array = new Object[this.array.length + 2];
+                System.arraycopy(this.array, 0, array, 0, index);
+                array[index] = key;
+                array[index + 1] = value;
+                System.arraycopy(this.array, index, array, index + 2, this.array.length - index);
+                return new Bitmap(bitmap | bit, array);
+            }
+            final Object existing = array[index], current = array[index + 1];
+            if (existing == null) {
+                final Node child = ((Node) current).with(shift + BITS, hash, key, value, added);
+                return child == current ? this : new Bitmap(bitmap, this.replace(index + 1, child));
+            }
+            if (existing.equals(key))
+                return current == value ? this : new Bitmap(bitmap, this.replace(index + 1, value));
+            added[0] = true;
+            final Object[] array = this.replace(index, null);
+            array[index + 1] = pair(shift + BITS, HashTrie.hash(existing), existing, current, hash, key, value);
+            return new Bitmap(bitmap, array);
+        }
+
+        @Override
+        Node without(int shift, int hash, Object key) {
+            final int bit = bit(hash, shift);
+            if ((bitmap & bit) == 0) return this;
+            final int index = this.index(bit);
+            final Object existing = array[index];
+            if (existing == null) {
+                final Node current = (Node) array[index + 1], child = current.without(shift + BITS, hash, key);
+                if (child == current) return this;
+                if (child == null) return this.remove(bit, index);
+                if (child.array.length == 2 && child.array[0] != null) { // a single entry, pull it up a level
+                    final Object[] array = this.replace(index, child.array[0]);
+                    array[index + 1] = child.array[1];
+                    return new Bitmap(bitmap, array);
+                }
+                return new Bitmap(bitmap, this.replace(index + 1, child));
+            }
+            return existing.equals(key) ? this.remove(bit, index) : this;
+        }
+
+        private Node remove(int bit, int index) {
+            if (bitmap == bit) return null;
+            final Object[] array = new Object[this.array.length - 2];
+            System.arraycopy(this.array, 0, array, 0, index);
+            System.arraycopy(this.array, index + 2, array, index, array.length - index);
+            return new Bitmap(bitmap & ~bit, array);
+        }
+
+    }
+
+    private static final class Collision extends Node {
+
+        @Serial
+        private static final long serialVersionUID = 1L;
+
+        private final int hash;
+
+        Collision(int hash, Object[] array) {
+            super(array);
+            this.hash = hash;
+        }
+
+        private int index(Object key) {
+            for (int i = 0; i < array.length; i += 2) if (array[i].equals(key)) return i;
+            return -1;
+        }
+
+        @Override
+        Object find(int shift, int hash, Object key) {
+            if (hash != this.hash) return MISSING;
+            final int index = this.index(key);
+            return index < 0 ? MISSING : array[index + 1];
+        }
+
+        @Override
+        Node with(int shift, int hash, Object key, Object value, boolean[] added) {
+            if (hash != this.hash) // branch above this node
+                return new Bitmap(bit(this.hash, shift), new Object[] {null, this}).with(shift, hash, key, value,
+                    added);
+            final int index = this.index(key);
+            if (index >= 0) return array[index + 1] == value ? this : new Collision(hash, this.replace(index + 1,
+                value));
+            added[0] = true;
+            final Object[] array = new Object[this.array.length + 2];
+            System.arraycopy(this.array, 0, array, 0, this.array.length);
+            array[this.array.length] = key;
+            array[this.array.length + 1] = value;
+            return new Collision(hash, array);
+        }
+
+        @Override
+        Node without(int shift, int hash, Object key) {
+            if (hash != this.hash) return this;
+            final int index = this.index(key);
+            if (index < 0) return this;
+            if (array.length == 4) { // the last entry becomes an ordinary one
+                final int other = index == 0 ? 2 : 0;
+                return new Bitmap(bit(hash, shift), new Object[] {array[other], array[other + 1]});
+            }
+            final Object[] array = new Object[this.array.length - 2];
+            System.arraycopy(this.array, 0, array, 0, index);
+            System.arraycopy(this.array, index + 2, array, index, array.length - index);
+            return new Collision(hash, array);
+        }
+
+    }
+
+}
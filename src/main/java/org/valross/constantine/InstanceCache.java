@@ -0,0 +1,99 @@
+package org.valross.constantine;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.HashMap;
+import java.util.Map;
+
+/// Remembers a value for each (constant) instance, for as long as that instance is reachable.
+///
+/// Instances are held weakly and by identity, so looking up a value never calls `equals` or `hashCode`
+/// on a constant, which could be as expensive as computing the value.
+/// The cache is split into independently-locked stripes, so threads rarely contend.
+///
+/// @param <Value> The type of value remembered
+final class InstanceCache<Value> {
+
+    private static final int STRIPES = 16;
+    private final Stripe<Value>[] stripes;
+
+    @SuppressWarnings("unchecked")
+    InstanceCache() {
+        this.stripes = new Stripe[STRIPES];
+        for (int i = 0; i < STRIPES; i++) stripes[i] = new Stripe<>();
+    }
+
+    private Stripe<Value> stripe(int hash) {
+        return stripes[(hash ^ (hash >>> 16)) & (STRIPES - 1)];
+    }
+
+    /// @return The value remembered for an instance, or null if there is none
+    Value get(Object instance) {
+        final int hash = System.identityHashCode(instance);
+        return this.stripe(hash).get(instance, hash);
+    }
+
+    void put(Object instance, Value value) {
+        final int hash = System.identityHashCode(instance);
+        this.stripe(hash).put(instance, hash, value);
+    }
+
+    private static final class Stripe<Value> {
+
+        private final Map<Object, Value> map = new HashMap<>();
+        private final ReferenceQueue<Object> queue = new ReferenceQueue<>();
+
+        synchronized Value get(Object instance, int hash) {
+            return map.get(new Probe(instance, hash));
+        }
+
+        synchronized void put(Object instance, int hash, Value value) {
+            for (Reference<?> cleared; (cleared = queue.poll()) != null; ) map.remove(cleared);
+            map.put(new Key(instance, hash, queue), value);
+        }
+
+    }
+
+    /// A weak, identity-based key.
+    private static final class Key extends WeakReference<Object> {
+
+        private final int hash;
+
+        Key(Object referent, int hash, ReferenceQueue<Object> queue) {
+            super(referent, queue);
+            this.hash = hash;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            final Object referent = this.get();
+            if (referent == null) return false;
+            if (o instanceof Probe probe) return probe.referent == referent;
+            return o instanceof Key key && key.get() == referent;
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+    }
+
+    /// A lookup for a key, without creating a reference.
+    private record Probe(Object referent, int hash) {
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Key key && key.get() == referent;
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+    }
+
+}
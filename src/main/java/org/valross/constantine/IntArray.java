@@ -0,0 +1,106 @@
+package org.valross.constantine;
+
+import java.lang.constant.Constable;
+import java.lang.constant.ConstantDesc;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Optional;
+import java.util.stream.IntStream;
+
+/// A constant (frozen) array of `int`s.
+///
+/// Unlike an [Array] of boxed values, the contents are stored unboxed.
+/// The array describes itself as a single packed payload, rather than one descriptor per element.
+public final class IntArray implements Constant, Cloneable {
+
+    private final int[] values;
+
+    public IntArray(int... values) {
+        this(Arrays.copyOf(values, values.length), false);
+    }
+
+    private IntArray(int[] values, boolean ignored) {
+        this.values = values;
+    }
+
+    static IntArray decode(ByteBuffer buffer) {
+        final int[] values = new int[buffer.remaining() / Integer.BYTES];
+        buffer.asIntBuffer().get(values);
+        return new IntArray(values, false);
+    }
+
+    byte[] encode() {
+        final ByteBuffer buffer = ByteBuffer.allocate(values.length * Integer.BYTES);
+        buffer.asIntBuffer().put(values);
+        return buffer.array();
+    }
+
+    @Override
+    public Constable[] serial() {
+        final Constable[] boxed = new Constable[values.length];
+        for (int i = 0; i < values.length; i++) boxed[i] = values[i];
+        return new Constable[] {new Array(boxed)};
+    }
+
+    @Override
+    public Class<?>[] canonicalParameters() {
+        return new Class[] {int[].class};
+    }
+
+    @Override
+    public IntArray constant() {
+        return this;
+    }
+
+    @Override
+    public Optional<? extends ConstantDesc> describeConstable() {
+        return Optional.of(Utilities.describePacked(IntArray.class, this.encode()));
+    }
+
+    public int size() {
+        return values.length;
+    }
+
+    public boolean isEmpty() {
+        return values.length == 0;
+    }
+
+    public int get(int index) {
+        return values[index];
+    }
+
+    public boolean contains(int value) {
+        for (int element : values) if (element == value) return true;
+        return false;
+    }
+
+    public IntStream stream() {
+        return Arrays.stream(values);
+    }
+
+    public int[] toArray() {
+        return Arrays.copyOf(values, values.length);
+    }
+
+    @Override
+    public IntArray clone() {
+        return new IntArray(values, false);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        return o instanceof IntArray array && Arrays.equals(values, array.values);
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(values);
+    }
+
+    @Override
+    public String toString() {
+        return "IntArray" + Arrays.toString(values);
+    }
+
+}
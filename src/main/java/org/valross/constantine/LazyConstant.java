@@ -0,0 +1,118 @@
+package org.valross.constantine;
+
+import java.lang.constant.Constable;
+import java.lang.constant.ConstantDesc;
+import java.lang.invoke.MethodHandles;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.function.Supplier;
+
+/// A constant value that is computed (or resolved from its description) the first time it is needed.
+///
+/// The value is computed at most once, even if several threads ask for it at the same time;
+/// the others wait for it, then share it. Once it is known, reading it takes no lock, though each read is still
+/// a volatile load, which (unlike a static final field) the JIT cannot constant-fold.
+/// This library targets Java 23, which has no public API for a field that is folded once set;
+/// stable values only arrive as a preview in Java 25.
+/// Keep a lazy constant in a `static final` field, so that at least the instance itself is folded
+/// and each read costs one load.
+/// If computing the value fails, nothing is remembered, and the next access tries again.
+/// A supplier that needs its own lazy constant's value fails with a [ConstantConstructionError].
+///
+/// A lazy constant describes itself as its value does, so it can be used wherever the value could be described.
+/// A lazy constant made from a description describes itself as that description, without resolving it.
+///
+/// ```java
+/// private static final LazyConstant<Table> TABLE = LazyConstant.of(Table::parse);
+/// ```
+///
+/// @param <Type> The type of value
+public final class LazyConstant<Type extends Constable> implements Constantive, Supplier<Type> {
+
+    private static final Object NULL = new Object();
+
+    private final Object lock = new Object();
+    private final ConstantDesc description;
+    private Supplier<? extends Type> supplier; // cleared once the value is known
+    private boolean computing; // guarded by the lock, which only the computing thread can hold
+    private volatile Object value;
+
+    private LazyConstant(Supplier<? extends Type> supplier, ConstantDesc description) {
+        this.supplier = supplier;
+        this.description = description;
+    }
+
+    /// @param supplier Computes the value, when it is first needed
+    /// @return A lazy constant for the supplier's value
+    public static <Type extends Constable> LazyConstant<Type> of(Supplier<? extends Type> supplier) {
+        return new LazyConstant<>(Objects.requireNonNull(supplier), null);
+    }
+
+    /// @param description The description of the value
+    /// @param lookup      The lookup to resolve the description with, when the value is first needed
+    /// @return A lazy constant for the described value
+    @SuppressWarnings("unchecked")
+    public static <Type extends Constable> LazyConstant<Type> of(ConstantDesc description,
+                                                                 MethodHandles.Lookup lookup) {
+        Objects.requireNonNull(lookup);
+        return new LazyConstant<>(() -> {
+            try {
+                return (Type) description.resolveConstantDesc(lookup);
+            } catch (ReflectiveOperationException ex) {
+                throw new ConstantConstructionError("Unable to resolve " + description, ex);
+            }
+        }, Objects.requireNonNull(description));
+    }
+
+    /// @return The value, computing it if this is the first access
+    @Override
+    @SuppressWarnings("unchecked")
+    public Type get() {
+        Object value = this.value;
+        if (value == null) value = this.compute();
+        return value == NULL ? null : (Type) value;
+    }
+
+    private Object compute() {
+        synchronized (lock) {
+            Object value = this.value;
+            if (value != null) return value;
+            if (computing) throw new ConstantConstructionError("Lazy constant needs its own value to compute it");
+            this.computing = true;
+            final Type computed;
+            try {
+                computed = supplier.get();
+            } finally {
+                this.computing = false;
+            }
+            this.value = value = computed == null ? NULL : computed;
+            this.supplier = null;
+            return value;
+        }
+    }
+
+    /// @return Whether the value has been computed
+    public boolean isResolved() {
+        return value != null;
+    }
+
+    /// @return The value as a constant
+    @Override
+    public Constant constant() {
+        final Type value = this.get();
+        return value instanceof Constant constant ? constant : Constant.fromConstable(value);
+    }
+
+    @Override
+    public Optional<? extends ConstantDesc> describeConstable() {
+        if (description != null) return Optional.of(description);
+        return Optional.ofNullable(Utilities.describe(this.get()));
+    }
+
+    @Override
+    public String toString() {
+        final Object value = this.value;
+        return "LazyConstant[" + (value == null ? "unresolved" : value == NULL ? "null" : value) + "]";
+    }
+
+}
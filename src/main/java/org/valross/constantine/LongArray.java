@@ -0,0 +1,106 @@
+package org.valross.constantine;
+
+import java.lang.constant.Constable;
+import java.lang.constant.ConstantDesc;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Optional;
+import java.util.stream.LongStream;
+
+/// A constant (frozen) array of `long`s.
+///
+/// Unlike an [Array] of boxed values, the contents are stored unboxed.
+/// The array describes itself as a single packed payload, rather than one descriptor per element.
+public final class LongArray implements Constant, Cloneable {
+
+    private final long[] values;
+
+    public LongArray(long... values) {
+        this(Arrays.copyOf(values, values.length), false);
+    }
+
+    private LongArray(long[] values, boolean ignored) {
+        this.values = values;
+    }
+
+    static LongArray decode(ByteBuffer buffer) {
+        final long[] values = new long[buffer.remaining() / Long.BYTES];
+        buffer.asLongBuffer().get(values);
+        return new LongArray(values, false);
+    }
+
+    byte[] encode() {
+        final ByteBuffer buffer = ByteBuffer.allocate(values.length * Long.BYTES);
+        buffer.asLongBuffer().put(values);
+        return buffer.array();
+    }
+
+    @Override
+    public Constable[] serial() {
+        final Constable[] boxed = new Constable[values.length];
+        for (int i = 0; i < values.length; i++) boxed[i] = values[i];
+        return new Constable[] {new Array(boxed)};
+    }
+
+    @Override
+    public Class<?>[] canonicalParameters() {
+        return new Class[] {long[].class};
+    }
+
+    @Override
+    public LongArray constant() {
+        return this;
+    }
+
+    @Override
+    public Optional<? extends ConstantDesc> describeConstable() {
+        return Optional.of(Utilities.describePacked(LongArray.class, this.encode()));
+    }
+
+    public int size() {
+        return values.length;
+    }
+
+    public boolean isEmpty() {
+        return values.length == 0;
+    }
+
+    public long get(int index) {
+        return values[index];
+    }
+
+    public boolean contains(long value) {
+        for (long element : values) if (element == value) return true;
+        return false;
+    }
+
+    public LongStream stream() {
+        return Arrays.stream(values);
+    }
+
+    public long[] toArray() {
+        return Arrays.copyOf(values, values.length);
+    }
+
+    @Override
+    public LongArray clone() {
+        return new LongArray(values, false);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        return o instanceof LongArray array && Arrays.equals(values, array.values);
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(values);
+    }
+
+    @Override
+    public String toString() {
+        return "LongArray" + Arrays.toString(values);
+    }
+
+}
@@ -0,0 +1,235 @@
+package org.valross.constantine;
+
+import javax.management.*;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.LongAdder;
+
+/// Counters for the work done by constants in this process.
+///
+/// Counting is off by default, so the only cost to constant operations is a check of a single flag.
+/// It can be turned on with [#enable()], through JMX (see [#register()]),
+/// or from the start by setting the system property `constantine.metrics` to `true`.
+///
+/// The same operations are also recorded as JDK Flight Recorder events (in the `Constantine` category)
+/// whenever a recording has them enabled, whether or not counting is on.
+/// Bootstraps, validations and errors are enabled in the default recording settings;
+/// descriptions, serials and interning happen far more often, so must be enabled explicitly, e.g.
+/// `-XX:StartFlightRecording:+org.valross.constantine.Intern#enabled=true`.
+public final class Metrics {
+
+    /// The name counters are registered with JMX under.
+    public static final String OBJECT_NAME = "org.valross.constantine:type=Metrics";
+
+    private static final LongAdder BOOTSTRAPS = new LongAdder(), BOOTSTRAP_NANOS = new LongAdder(),
+        DESCRIPTIONS = new LongAdder(), DESCRIBED = new LongAdder(), VALIDATIONS = new LongAdder(),
+        SERIALS = new LongAdder(), SERIAL_NANOS = new LongAdder(), ERRORS = new LongAdder(),
+        INTERN_HITS = new LongAdder(), INTERN_MISSES = new LongAdder();
+    private static volatile boolean enabled = Boolean.getBoolean("constantine.metrics");
+
+    private Metrics() {
+    }
+
+    /// Starts counting.
+    public static void enable() {
+        enabled = true;
+    }
+
+    /// Stops counting. The counts so far are kept.
+    public static void disable() {
+        enabled = false;
+    }
+
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    /// Sets every count back to zero.
+    public static void reset() {
+        for (LongAdder adder : new LongAdder[] {BOOTSTRAPS, BOOTSTRAP_NANOS, DESCRIPTIONS, DESCRIBED, VALIDATIONS,
+            SERIALS, SERIAL_NANOS, ERRORS, INTERN_HITS, INTERN_MISSES}) adder.reset();
+    }
+
+    /// @return The counts so far
+    public static Snapshot snapshot() {
+        return new Snapshot(BOOTSTRAPS.sum(), BOOTSTRAP_NANOS.sum(), DESCRIPTIONS.sum(), DESCRIBED.sum(),
+            VALIDATIONS.sum(), SERIALS.sum(), SERIAL_NANOS.sum(), ERRORS.sum(), INTERN_HITS.sum(),
+            INTERN_MISSES.sum());
+    }
+
+    /// Registers the counters with the platform MBean server, under [#OBJECT_NAME].
+    /// Registering them again has no effect.
+    ///
+    /// @return The name the counters are registered under
+    public static ObjectName register() {
+        final ObjectName name;
+        try {
+            name = new ObjectName(OBJECT_NAME);
+        } catch (MalformedObjectNameException ex) {
+            throw new IllegalStateException(ex);
+        }
+        final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        try {
+            if (!server.isRegistered(name)) server.registerMBean(new Bean(), name);
+        } catch (InstanceAlreadyExistsException ex) {
+            // registered by another thread in the meantime
+        } catch (JMException ex) {
+            throw new IllegalStateException(ex);
+        }
+        return name;
+    }
+
+    /// @return The start time of a timed operation, or 0 if counting is off
+    static long start() {
+        return enabled ? System.nanoTime() : 0;
+    }
+
+    static void bootstrapped(long start) {
+        if (start == 0) return;
+        BOOTSTRAPS.increment();
+        BOOTSTRAP_NANOS.add(System.nanoTime() - start);
+    }
+
+    static void serialized(long start) {
+        if (start == 0) return;
+        SERIALS.increment();
+        SERIAL_NANOS.add(System.nanoTime() - start);
+    }
+
+    static void described(boolean remembered) {
+        if (!enabled) return;
+        DESCRIPTIONS.increment();
+        if (!remembered) DESCRIBED.increment();
+    }
+
+    static void validated() {
+        if (enabled) VALIDATIONS.increment();
+    }
+
+    static void failed() {
+        if (enabled) ERRORS.increment();
+    }
+
+    static void interned(boolean hit) {
+        if (enabled) (hit ? INTERN_HITS : INTERN_MISSES).increment();
+    }
+
+    /// The counts at one point in time.
+    ///
+    /// @param bootstraps     The number of constants built by a bootstrap method
+    /// @param bootstrapNanos The total time spent in bootstrap methods
+    /// @param descriptions   The number of calls to (the default) `describeConstable`
+    /// @param described      The number of those calls that had to describe the constant, rather than
+    ///                       returning a remembered description
+    /// @param validations    The number of times a constant was validated
+    /// @param serials        The number of record constants deconstructed by reflection
+    /// @param serialNanos    The total time spent deconstructing record constants
+    /// @param errors         The number of constant errors created
+    /// @param internHits     The number of times a pool returned an existing instance
+    /// @param internMisses   The number of times a pool had no existing instance
+    public record Snapshot(long bootstraps, long bootstrapNanos, long descriptions, long described,
+                           long validations, long serials, long serialNanos, long errors,
+                           long internHits, long internMisses) {
+
+    }
+
+    /// The JMX view of the counters.
+    public interface MetricsMXBean {
+
+        boolean isEnabled();
+
+        void setEnabled(boolean enabled);
+
+        long getBootstraps();
+
+        long getBootstrapNanos();
+
+        long getDescriptions();
+
+        long getDescribed();
+
+        long getValidations();
+
+        long getSerials();
+
+        long getSerialNanos();
+
+        long getErrors();
+
+        long getInternHits();
+
+        long getInternMisses();
+
+        void reset();
+
+    }
+
+    private static final class Bean implements MetricsMXBean {
+
+        @Override
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        @Override
+        public void setEnabled(boolean enabled) {
+            Metrics.enabled = enabled;
+        }
+
+        @Override
+        public long getBootstraps() {
+            return BOOTSTRAPS.sum();
+        }
+
+        @Override
+        public long getBootstrapNanos() {
+            return BOOTSTRAP_NANOS.sum();
+        }
+
+        @Override
+        public long getDescriptions() {
+            return DESCRIPTIONS.sum();
+        }
+
+        @Override
+        public long getDescribed() {
+            return DESCRIBED.sum();
+        }
+
+        @Override
+        public long getValidations() {
+            return VALIDATIONS.sum();
+        }
+
+        @Override
+        public long getSerials() {
+            return SERIALS.sum();
+        }
+
+        @Override
+        public long getSerialNanos() {
+            return SERIAL_NANOS.sum();
+        }
+
+        @Override
+        public long getErrors() {
+            return ERRORS.sum();
+        }
+
+        @Override
+        public long getInternHits() {
+            return INTERN_HITS.sum();
+        }
+
+        @Override
+        public long getInternMisses() {
+            return INTERN_MISSES.sum();
+        }
+
+        @Override
+        public void reset() {
+            Metrics.reset();
+        }
+
+    }
+
+}
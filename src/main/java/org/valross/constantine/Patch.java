@@ -0,0 +1,209 @@
+package org.valross.constantine;
+
+import java.lang.constant.Constable;
+import java.util.*;
+
+/// The differences between two constant graphs, which can be applied to the first to re-create the second.
+///
+/// A patch is found by walking both graphs together through each constant's serial.
+/// Parts that are the same instance (or equal, for values that are not broken down further) are skipped.
+/// Two constants of the same type (with the same canonical parameters) are compared part by part;
+/// any other difference replaces the value at that path outright.
+/// Arrays are compared by their common prefix and suffix: if the rest differs in length,
+/// it is replaced as a range (so an insertion or removal is one edit), otherwise it is compared element by element.
+///
+/// Applying a patch re-creates only the constants on the path to each edit, through their canonical constructors
+/// (or factories); every other part of the old graph is reused as it is. Spliced arrays share the storage of
+/// the old array (see [Array#concat(Array...)]).
+///
+/// A patch is itself a constant, so it can be described, encoded and sent in place of the new graph.
+///
+/// ```java
+/// final Patch patch = Patch.diff(previous, current);
+/// // elsewhere
+/// final Snapshot current = patch.apply(previous);
+/// ```
+///
+/// @param edits The edits, in the order they were found (each an [Edit])
+public record Patch(Array edits) implements RecordConstant {
+
+    /// Finds the differences between two constant graphs.
+    ///
+    /// @param from The old graph
+    /// @param to   The new graph
+    /// @return A patch that turns the old graph into the new one
+    public static Patch diff(Constable from, Constable to) {
+        final ArrayBuilder edits = new ArrayBuilder();
+        final Deque<Pair> pending = new ArrayDeque<>();
+        pending.push(new Pair(new int[0], from, to));
+        while (!pending.isEmpty()) {
+            final Pair pair = pending.pop();
+            if (pair.from == pair.to) continue;
+            if (!isComparable(pair.from, pair.to)) {
+                if (!Objects.equals(pair.from, pair.to)) edits.add(new Replace(new IntArray(pair.path), pair.to));
+                continue;
+            }
+            final Constable[] before = Utilities.serial((Constant) pair.from);
+            final Constable[] after = Utilities.serial((Constant) pair.to);
+            if (pair.from instanceof Array) {
+                int start = 0, oldEnd = before.length, newEnd = after.length;
+                while (start < oldEnd && start < newEnd && isSame(before[start], after[start])) start++;
+                while (oldEnd > start && newEnd > start && isSame(before[oldEnd - 1], after[newEnd - 1])) {
+                    oldEnd--;
+                    newEnd--;
+                }
+                if (oldEnd - start != newEnd - start) {
+                    edits.add(new Splice(new IntArray(pair.path), start, oldEnd - start,
+                        new Array(Arrays.copyOfRange(after, start, newEnd), false)));
+                    continue;
+                }
+                for (int i = oldEnd - 1; i >= start; i--) pending.push(pair.child(i, before[i], after[i]));
+            } else if (before.length != after.length) edits.add(new Replace(new IntArray(pair.path), pair.to));
+            else for (int i = before.length - 1; i >= 0; i--) pending.push(pair.child(i, before[i], after[i]));
+        }
+        return new Patch(edits.constant());
+    }
+
+    private static boolean isComparable(Constable from, Constable to) {
+        if (from == null || to == null || from.getClass() != to.getClass()) return false;
+        if (Utilities.isLeaf(from)) return false;
+        return Arrays.equals(((Constant) from).canonicalParameters(), ((Constant) to).canonicalParameters());
+    }
+
+    private static boolean isSame(Constable from, Constable to) {
+        return from == to || Objects.equals(from, to);
+    }
+
+    /// @return Whether there are no differences
+    public boolean isEmpty() {
+        return edits.isEmpty();
+    }
+
+    /// Applies this patch to the graph it was made from.
+    ///
+    /// @param base The old graph
+    /// @return The new graph, sharing every unchanged part with the old graph
+    /// @throws ConstantError if this patch was not made from a graph like this one
+    @SuppressWarnings("unchecked")
+    public <Type> Type apply(Type base) {
+        final Step root = new Step();
+        for (Constable constable : edits) {
+            final Edit edit = (Edit) constable;
+            Step step = root;
+            for (int index : edit.path().toArray()) step = step.children.computeIfAbsent(index, key -> new Step());
+            if (step.edit != null) throw new ConstantConstructionError("Conflicting edits at " + edit.path());
+            step.edit = edit;
+        }
+        final Deque<Frame> pending = new ArrayDeque<>();
+        pending.push(new Frame(root, base, -1));
+        Object result = base;
+        while (!pending.isEmpty()) {
+            final Frame frame = pending.peek();
+            if (frame.children.hasNext()) {
+                final Map.Entry<Integer, Step> child = frame.children.next();
+                final int index = child.getKey();
+                if (index < 0 || index >= frame.parts.length)
+                    throw new ConstantConstructionError("Patch does not apply: no part " + index + " in " + frame.value);
+                pending.push(new Frame(child.getValue(), frame.parts[index], index));
+                continue;
+            }
+            pending.pop();
+            final Object value = frame.finish();
+            final Frame parent = pending.peek();
+            if (parent == null) result = value;
+            else if (value != parent.parts[frame.index]) {
+                parent.parts[frame.index] = (Constable) value;
+                parent.changed = true;
+            }
+        }
+        return (Type) result;
+    }
+
+    /// A change to the value at a path in a constant graph.
+    public sealed interface Edit extends RecordConstant permits Replace, Splice {
+
+        /// @return The index of the part to follow at each level, from the root, to reach the changed value
+        IntArray path();
+
+    }
+
+    /// Replaces the value at a path.
+    ///
+    /// @param path  The path to the value
+    /// @param value The new value
+    public record Replace(IntArray path, Constable value) implements Edit {
+
+    }
+
+    /// Replaces a range of the array at a path.
+    ///
+    /// @param path     The path to the array
+    /// @param from     The index of the first element replaced
+    /// @param removed  The number of elements replaced
+    /// @param inserted The elements inserted in their place
+    public record Splice(IntArray path, int from, int removed, Array inserted) implements Edit {
+
+    }
+
+    /// Two values at the same path in the old and new graphs.
+    private record Pair(int[] path, Constable from, Constable to) {
+
+        Pair child(int index, Constable from, Constable to) {
+            final int[] path = Arrays.copyOf(this.path, this.path.length + 1);
+            path[this.path.length] = index;
+            return new Pair(path, from, to);
+        }
+
+    }
+
+    /// The edits at (and below) a path.
+    private static final class Step {
+
+        final SortedMap<Integer, Step> children = new TreeMap<>();
+        Edit edit;
+
+    }
+
+    /// A value being patched, and the parts of it that have been.
+    private static final class Frame {
+
+        final Step step;
+        final Object value;
+        final int index;
+        final Constable[] parts;
+        final Iterator<Map.Entry<Integer, Step>> children;
+        boolean changed;
+
+        Frame(Step step, Object value, int index) {
+            this.step = step;
+            this.value = value;
+            this.index = index;
+            this.children = step.children.entrySet().iterator();
+            if (step.children.isEmpty()) this.parts = null;
+            else if (value == null || Utilities.isLeaf(value))
+                throw new ConstantConstructionError("Patch does not apply: " + value + " has no parts");
+            else this.parts = Utilities.serial((Constant) value);
+        }
+
+        Object finish() {
+            Object value = this.value;
+            if (changed) {
+                value = Utilities.rebuild((Constant) value, parts);
+                if (value instanceof Canonical<?> canonical) value = canonical.intern();
+            }
+            return switch (step.edit) {
+                case null -> value;
+                case Replace replace -> replace.value();
+                case Splice splice -> {
+                    if (!(value instanceof Array array) || splice.from() < 0 || splice.removed() < 0
+                        || splice.from() + splice.removed() > array.size())
+                        throw new ConstantConstructionError("Patch does not apply: cannot splice " + value);
+                    yield array.slice(0, splice.from()).concat(splice.inserted(),
+                        array.slice(splice.from() + splice.removed(), array.size()));
+                }
+            };
+        }
+
+    }
+
+}
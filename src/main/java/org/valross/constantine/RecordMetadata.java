@@ -0,0 +1,90 @@
+package org.valross.constantine;
+
+import java.lang.constant.Constable;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.RecordComponent;
+
+/// The resolved deconstruction data for a record class.
+/// This is computed once per class, so that reading a record's components
+/// requires no further reflection or lookup creation.
+/// If the record has a generated [Companion], that is used instead of reflection.
+///
+/// @param deconstructor A handle `(Object)Constable[]` that reads every component into a fresh array
+/// @param parameters    The component types, in declaration order (never exposed directly)
+record RecordMetadata(MethodHandle deconstructor, Class<?>[] parameters) {
+
+    private static final MethodHandle TO_CONSTABLE, COMPANION_SERIAL;
+    private static final ClassValue<RecordMetadata> CACHE = new ClassValue<>() {
+        @Override
+        protected RecordMetadata computeValue(Class<?> type) {
+            return RecordMetadata.resolve(type);
+        }
+    };
+
+    static {
+        try {
+            TO_CONSTABLE = MethodHandles.lookup().findStatic(RecordMetadata.class, "toConstable",
+                MethodType.methodType(Constable.class, Class.class, Object.class));
+            COMPANION_SERIAL = MethodHandles.lookup().findVirtual(Companion.class, "serial",
+                MethodType.methodType(Constable[].class, Object.class));
+        } catch (NoSuchMethodException | IllegalAccessException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    static RecordMetadata of(Class<?> type) {
+        return CACHE.get(type);
+    }
+
+    private static RecordMetadata resolve(Class<?> type) {
+        final Companion<?> companion = Utilities.companion(type);
+        if (companion != null)
+            return new RecordMetadata(COMPANION_SERIAL.bindTo(companion), companion.canonicalParameters());
+        final RecordComponent[] components = type.getRecordComponents();
+        if (components == null) throw new ConstantDeconstructionError("Not a record type: " + type);
+        final Class<?>[] parameters = new Class[components.length];
+        final MethodHandle[] accessors = new MethodHandle[components.length];
+        final MethodHandle converter = MethodHandles.insertArguments(TO_CONSTABLE, 0, type);
+        try {
+            final MethodHandles.Lookup lookup = MethodHandles.privateLookupIn(type, MethodHandles.lookup());
+            for (int i = 0; i < components.length; i++) {
+                parameters[i] = components[i].getType();
+                final MethodHandle accessor = lookup.unreflect(components[i].getAccessor())
+                    .asType(MethodType.methodType(Object.class, Object.class));
+                accessors[i] = MethodHandles.filterReturnValue(accessor, converter);
+            }
+        } catch (IllegalAccessException e) {
+            throw new ConstantDeconstructionError("Unable to access record components: " + type, e);
+        }
+        // (Constable...)Constable[] -> (Object, Object, ...)Constable[] -> (Object)Constable[]
+        final MethodHandle collector = MethodHandles.identity(Constable[].class)
+            .asCollector(Constable[].class, components.length);
+        final MethodHandle filled = MethodHandles.filterArguments(collector, 0, accessors);
+        final MethodHandle deconstructor = MethodHandles.permuteArguments(filled,
+            MethodType.methodType(Constable[].class, Object.class), new int[components.length]);
+        return new RecordMetadata(deconstructor, parameters);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Constable toConstable(Class<?> owner, Object object) {
+        if (object instanceof Constable constable) return constable;
+        if (object instanceof Constable[] array) return new Array(array);
+        if (object instanceof int[] array) return new IntArray(array);
+        if (object instanceof long[] array) return new LongArray(array);
+        if (object instanceof double[] array) return new DoubleArray(array);
+        if (object instanceof byte[] array) return new ByteArray(array);
+        if (object == null) return null;
+        throw new ConstantDeconstructionError((Class<? extends Constable>) owner, object.getClass());
+    }
+
+    Constable[] deconstruct(Object record) throws Throwable {
+        return (Constable[]) deconstructor.invokeExact(record);
+    }
+
+    Class<?>[] canonicalParameters() {
+        return parameters.clone();
+    }
+
+}
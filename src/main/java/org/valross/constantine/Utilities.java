@@ -3,10 +3,58 @@ package org.valross.constantine;
 import java.lang.constant.Constable;
 import java.lang.constant.ConstantDesc;
 import java.lang.constant.ConstantDescs;
+import java.lang.constant.DynamicConstantDesc;
+import java.lang.constant.MethodTypeDesc;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
 import java.lang.invoke.MethodType;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static java.lang.constant.ConstantDescs.DEFAULT_NAME;
 
 final class Utilities {
 
+    private static final MethodHandle UNWRAP;
+    private static final ClassValue<Map<FactoryKey, MethodHandle>> FACTORIES = new ClassValue<>() {
+        @Override
+        protected Map<FactoryKey, MethodHandle> computeValue(Class<?> type) {
+            return new ConcurrentHashMap<>();
+        }
+    };
+
+    private static final ClassValue<Map<List<Class<?>>, MethodTypeDesc>> SIGNATURES = new ClassValue<>() {
+        @Override
+        protected Map<List<Class<?>>, MethodTypeDesc> computeValue(Class<?> type) {
+            return new ConcurrentHashMap<>(1);
+        }
+    };
+
+    private static final ClassValue<Optional<Companion<?>>> COMPANIONS = new ClassValue<>() {
+        @Override
+        protected Optional<Companion<?>> computeValue(Class<?> type) {
+            return Optional.ofNullable(Utilities.findCompanion(type));
+        }
+    };
+
+    static {
+        try {
+            UNWRAP = MethodHandles.lookup().findStatic(Utilities.class, "unwrap",
+                MethodType.methodType(Object.class, Object.class, Class.class));
+        } catch (NoSuchMethodException | IllegalAccessException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    /// The number of raw bytes in each packed chunk; 48000 bytes encode to 64000 base64 characters,
+    /// under the 65535-byte limit on a class file string constant.
+    static final int PACKED_CHUNK = 48000;
+
     static ConstantDesc[] getArguments(Constant constant) {
         final Constable[] constables;
         try {
@@ -15,22 +63,187 @@ final class Utilities {
             throw new ConstantDeconstructionError(e);
         }
         final ConstantDesc[] arguments = new ConstantDesc[constables.length + 1];
-        for (int i = 0; i < constables.length; i++) {
-            final Constable constable = constables[i];
-            if (constable == null) arguments[i + 1] = ConstantDescs.NULL;
-            else if (constable instanceof ConstantDesc self) arguments[i + 1] = self;
-            else arguments[i + 1] = constable.describeConstable().orElse(null);
-        }
-        arguments[0] = MethodType.methodType(void.class, constant.canonicalParameters()).describeConstable().orElse(null);
+        for (int i = 0; i < constables.length; i++) arguments[i + 1] = describe(constables[i]);
+        arguments[0] = signature(constant.getClass(), constant.canonicalParameters());
         return arguments;
     }
 
+    /// @return the (remembered) description of a constructor signature
+    static MethodTypeDesc signature(Class<?> type, Class<?>[] parameters) {
+        return SIGNATURES.get(type).computeIfAbsent(List.of(parameters),
+            key -> MethodType.methodType(void.class, parameters).describeConstable().orElseThrow());
+    }
+
+    static ConstantDesc describe(Constable constable) {
+        if (constable == null) return ConstantDescs.NULL;
+        if (constable instanceof ConstantDesc self) return self;
+        return constable.describeConstable().orElse(null);
+    }
+
     static void unwrapArray(Object[] array, MethodType type) {
-        for (int i = 0; i < array.length; i++) {
-            Class<?> parameterType = type.parameterType(i);
-            if (parameterType.isArray() && array[i] instanceof Array wrapper)
-                array[i] = wrapper.toArray(parameterType.componentType());
+        for (int i = 0; i < array.length; i++) array[i] = unwrap(array[i], type.parameterType(i));
+    }
+
+    /// Converts a constant array wrapper back into the array type a constructor is expecting.
+    static Object unwrap(Object value, Class<?> parameterType) {
+        if (!parameterType.isArray()) return value;
+        if (value instanceof Array wrapper) {
+            if (parameterType.componentType().isPrimitive()) return unbox(wrapper, parameterType.componentType());
+            return wrapper.toArray(parameterType.componentType());
+        }
+        if (value instanceof IntArray wrapper) return wrapper.toArray();
+        if (value instanceof LongArray wrapper) return wrapper.toArray();
+        if (value instanceof DoubleArray wrapper) return wrapper.toArray();
+        if (value instanceof ByteArray wrapper) return wrapper.toArray();
+        return value;
+    }
+
+    /// A full-privilege lookup in a constant type, for finding its canonical constructor or factory.
+    /// All of this library's own lookups come from here, so they share cached [#factory] handles.
+    static MethodHandles.Lookup lookupIn(Class<?> type) throws IllegalAccessException {
+        return MethodHandles.privateLookupIn(type, MethodHandles.lookup());
+    }
+
+    /// Finds (or reuses) a handle for a canonical constructor or factory, adapted to take the whole
+    /// bootstrap argument array directly: `(Object[])Object`. The first element of that array (the signature)
+    /// is ignored, and any array parameters are unwrapped from their constant form on the way in.
+    ///
+    /// Handles are cached per type, signature and lookup, so repeated resolution does no lookups.
+    ///
+    /// @param name The name of the static factory, or null for the constructor
+    static MethodHandle factory(MethodHandles.Lookup lookup, Class<?> type, String name, MethodType signature)
+        throws NoSuchMethodException, IllegalAccessException {
+        final FactoryKey key = new FactoryKey(name, signature, lookup.lookupClass(), lookup.previousLookupClass(),
+            lookup.lookupModes());
+        final Map<FactoryKey, MethodHandle> cache = FACTORIES.get(type);
+        final MethodHandle cached = cache.get(key);
+        if (cached != null) return cached;
+        MethodHandle handle;
+        if (name == null) handle = lookup.findConstructor(type, signature).asFixedArity();
+        else handle = lookup.findStatic(type, name, signature).asFixedArity();
+        final int count = signature.parameterCount();
+        for (int i = 0; i < count; i++) {
+            final Class<?> parameter = signature.parameterType(i);
+            if (!parameter.isArray()) continue;
+            final MethodHandle filter = MethodHandles.insertArguments(UNWRAP, 1, parameter)
+                .asType(MethodType.methodType(parameter, Object.class));
+            handle = MethodHandles.filterArguments(handle, i, filter);
+        }
+        handle = handle.asType(MethodType.genericMethodType(count));
+        handle = MethodHandles.dropArguments(handle, 0, Object.class).asSpreader(Object[].class, count + 1);
+        final MethodHandle previous = cache.putIfAbsent(key, handle);
+        return previous != null ? previous : handle;
+    }
+
+    private static Object unbox(Array wrapper, Class<?> component) {
+        final Object array = java.lang.reflect.Array.newInstance(component, wrapper.size());
+        int index = 0;
+        for (Constable constable : wrapper) java.lang.reflect.Array.set(array, index++, constable);
+        return array;
+    }
+
+    /// Describes a primitive array by its packed (big-endian) contents,
+    /// split into base64 chunks that each fit in a class file string constant.
+    static DynamicConstantDesc<Constant> describePacked(Class<? extends Constant> type, byte[] data) {
+        final ConstantDesc[] chunks = new ConstantDesc[(data.length + PACKED_CHUNK - 1) / PACKED_CHUNK];
+        final Base64.Encoder encoder = Base64.getEncoder();
+        for (int i = 0; i < chunks.length; i++) {
+            final int start = i * PACKED_CHUNK;
+            final int length = Math.min(PACKED_CHUNK, data.length - start);
+            chunks[i] = encoder.encodeToString(Arrays.copyOfRange(data, start, start + length));
+        }
+        return DynamicConstantDesc.ofNamed(Constant.BOOTSTRAP_PACKED, DEFAULT_NAME, Constant.describe(type), chunks);
+    }
+
+    static ByteBuffer unpack(Object... chunks) {
+        final Base64.Decoder decoder = Base64.getDecoder();
+        final byte[][] parts = new byte[chunks.length][];
+        int length = 0;
+        for (int i = 0; i < chunks.length; i++) length += (parts[i] = decoder.decode((String) chunks[i])).length;
+        final ByteBuffer buffer = ByteBuffer.allocate(length);
+        for (byte[] part : parts) buffer.put(part);
+        return buffer.flip();
+    }
+
+    /// @return Whether a value is not broken down further (into a serial) when walking a constant graph
+    static boolean isLeaf(Object value) {
+        return !(value instanceof Constant) || value instanceof Enum<?> || value instanceof IntArray
+            || value instanceof LongArray || value instanceof DoubleArray || value instanceof ByteArray;
+    }
+
+    /// @return The serial of a constant
+    /// @throws ConstantDeconstructionError if the constant could not be deconstructed
+    static Constable[] serial(Constant constant) {
+        try {
+            return constant.serial();
+        } catch (Throwable ex) {
+            throw new ConstantDeconstructionError(ex);
         }
     }
 
+    /// Re-creates a constant from (different) parts, through its canonical constructor or factory.
+    ///
+    /// @param constant The constant to re-create
+    /// @param parts    The parts of the new constant, in the order of its serial
+    /// @return The new constant (not interned)
+    static Object rebuild(Constant constant, Constable[] parts) {
+        if (constant instanceof Array) return new Array(parts.clone(), false);
+        final String factoryName = constant instanceof Canonical<?> canonical ? canonical.factoryMethodName() : null;
+        return rebuild(constant.getClass(), factoryName, constant.canonicalParameters(), parts);
+    }
+
+    /// Creates a constant from its parts, through its canonical constructor or factory.
+    ///
+    /// @param type        The type of constant
+    /// @param factoryName The name of its canonical factory, or null for its canonical constructor
+    /// @param parameters  Its canonical parameters
+    /// @param parts       The parts of the constant, in the order of its serial
+    /// @return The new constant (not interned)
+    static Object rebuild(Class<?> type, String factoryName, Class<?>[] parameters, Constable[] parts) {
+        final Object[] arguments = new Object[parts.length + 1];
+        System.arraycopy(parts, 0, arguments, 1, parts.length);
+        try {
+            final MethodHandles.Lookup lookup = Utilities.lookupIn(type);
+            final MethodHandle factory;
+            if (factoryName != null)
+                factory = Utilities.factory(lookup, type, factoryName, MethodType.methodType(type, parameters));
+            else factory = Utilities.factory(lookup, type, null, MethodType.methodType(void.class, parameters));
+            return (Object) factory.invokeExact(arguments);
+        } catch (Throwable ex) {
+            throw new ConstantConstructionError("Unable to rebuild " + type.getName(), ex);
+        }
+    }
+
+    /// @return The canonical parameters of a type, if they can be found without an instance
+    static Class<?>[] knownParameters(Class<?> type) {
+        if (type == ConstantMap.class || type == ConstantSet.class) return new Class<?>[] {Constable[].class};
+        if (type.isRecord()) return RecordMetadata.of(type).canonicalParameters();
+        final Companion<?> companion = Utilities.companion(type);
+        return companion == null ? null : companion.canonicalParameters();
+    }
+
+    static Companion<?> companion(Class<?> type) {
+        return COMPANIONS.get(type).orElse(null);
+    }
+
+    private static Companion<?> findCompanion(Class<?> type) {
+        if (type.isPrimitive() || type.isArray() || type.getClassLoader() == null) return null;
+        final Class<?> companion;
+        try {
+            companion = Class.forName(type.getName() + "_Companion", true, type.getClassLoader());
+        } catch (ClassNotFoundException ex) {
+            return null;
+        }
+        if (!Companion.class.isAssignableFrom(companion)) return null;
+        try {
+            return (Companion<?>) MethodHandles.privateLookupIn(companion, MethodHandles.lookup())
+                .findConstructor(companion, MethodType.methodType(void.class)).invoke();
+        } catch (Throwable ex) {
+            throw new ConstantDeconstructionError("Unable to create companion " + companion.getName(), ex);
+        }
+    }
+
+    private record FactoryKey(String name, MethodType signature, Class<?> lookupClass, Class<?> previousLookupClass,
+                              int lookupModes) {}
+
 }
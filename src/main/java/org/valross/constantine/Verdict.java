@@ -0,0 +1,150 @@
+package org.valross.constantine;
+
+import java.lang.constant.Constable;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.*;
+
+/// The (memoized) validation result for a class.
+/// Whether a type is constant is decided once, by walking every type reachable from its fields and parents.
+/// Types that refer back to themselves (directly or through other types) are handled by treating a type
+/// that is already being checked as passing, since its own checks will decide the result.
+///
+/// The presence of a canonical constructor or factory is decided on first request,
+/// and remembered for as long as the same canonical parameters are asked for.
+final class Verdict {
+
+    private static final ClassValue<Verdict> CACHE = new ClassValue<>() {
+        @Override
+        protected Verdict computeValue(Class<?> type) {
+            return new Verdict(type, Verdict.check(type));
+        }
+    };
+
+    private final Class<?> type;
+    private final String reason;
+    private volatile Check constructor, factory;
+
+    private Verdict(Class<?> type, String reason) {
+        this.type = type;
+        this.reason = reason;
+    }
+
+    static Verdict of(Class<?> type) {
+        return CACHE.get(type);
+    }
+
+    static boolean isJavaConstant(Class<?> type) {
+        return type.isPrimitive() || type.isEnum() || type == Record.class || (Constable.class.isAssignableFrom(type) && type.getPackageName()
+            .startsWith("java."));
+    }
+
+    /// The JDK's skeletal collections keep no state of their own (beyond transient bookkeeping),
+    /// so a constant may extend them without them being constant.
+    static boolean isCollectionBase(Class<?> type) {
+        return type == AbstractCollection.class || type == AbstractList.class || type == AbstractSet.class
+            || type == AbstractMap.class;
+    }
+
+    /// Walks every type reachable from this one, stopping at the first that cannot be constant.
+    ///
+    /// @return the reason this type is not constant, or null if it is
+    private static String check(Class<?> root) {
+        final Set<Class<?>> visited = new HashSet<>();
+        final Deque<Class<?>> pending = new ArrayDeque<>();
+        pending.add(root);
+        while (!pending.isEmpty()) {
+            final Class<?> type = pending.poll();
+            if (!visited.add(type)) continue;
+            if (isJavaConstant(type)) continue;
+            if (type.isArray()) {
+                pending.add(type.getComponentType());
+                continue;
+            }
+            if (!Constant.class.isAssignableFrom(type)) return "Not a constant type: " + type.getName();
+            for (Field field : type.getFields()) {
+                final int modifiers = field.getModifiers();
+                if (Modifier.isStatic(modifiers)) continue;
+                if (Modifier.isTransient(modifiers)) continue;
+                if ((modifiers & 0x00001000) != 0) continue;
+                if (!Modifier.isFinal(modifiers))
+                    return "Non-final field: " + type.getName() + "." + field.getName();
+                pending.add(field.getType());
+            }
+            final Class<?> parent = type.getSuperclass();
+            if (parent != null && parent != Object.class && !isCollectionBase(parent)) pending.add(parent);
+        }
+        return null;
+    }
+
+    boolean isConstant() {
+        return reason == null;
+    }
+
+    /// @return why this type is not constant, or null if it is
+    String reason() {
+        return reason;
+    }
+
+    boolean hasCanonicalConstructor(Class<?>... parameters) {
+        final Check check = constructor;
+        if (check != null && check.matches(null, parameters)) return check.result;
+        boolean result;
+        try {
+            MethodHandles.privateLookupIn(type, MethodHandles.lookup())
+                .findConstructor(type, MethodType.methodType(void.class, parameters));
+            result = true;
+        } catch (NoSuchMethodException | IllegalAccessException e) {
+            result = false;
+        }
+        this.constructor = new Check(null, parameters.clone(), result);
+        return result;
+    }
+
+    boolean hasCanonicalFactory(String name, Class<?>... parameters) {
+        final Check check = factory;
+        if (check != null && check.matches(name, parameters)) return check.result;
+        boolean result;
+        try {
+            MethodHandles.lookup().findStatic(type, name, MethodType.methodType(type, parameters));
+            result = true;
+        } catch (NoSuchMethodException | IllegalAccessException e) {
+            result = false;
+        }
+        this.factory = new Check(name, parameters.clone(), result);
+        return result;
+    }
+
+    /// Decides whether input that cannot be trusted (a stream) may rebuild this type through a constructor
+    /// or factory it names: the type must be constant, only a [Canonical] type has a factory,
+    /// parameters that can be found from the type must be those, and the constructor (or factory) must exist.
+    ///
+    /// @param factoryName The factory named, or null for a constructor
+    /// @param parameters  The parameters named
+    /// @return why the type may not be rebuilt this way, or null if it may
+    String refusal(String factoryName, Class<?>[] parameters) {
+        if (reason != null) return reason;
+        if (factoryName != null && !Canonical.class.isAssignableFrom(type))
+            return "Not a canonical type: " + type.getName();
+        if (parameters == null || Arrays.asList(parameters).contains(null))
+            return "No canonical parameters for " + type.getName();
+        final Class<?>[] known = Utilities.knownParameters(type);
+        if (known != null && !Arrays.equals(known, parameters))
+            return "Not the canonical parameters of " + type.getName() + ": " + Arrays.toString(parameters);
+        if (factoryName != null ? this.hasCanonicalFactory(factoryName, parameters)
+            : this.hasCanonicalConstructor(parameters)) return null;
+        return "No canonical " + (factoryName != null ? "factory " + factoryName : "constructor") + " for "
+            + type.getName() + " taking " + Arrays.toString(parameters);
+    }
+
+    private record Check(String name, Class<?>[] parameters, boolean result) {
+
+        boolean matches(String name, Class<?>[] parameters) {
+            return Objects.equals(this.name, name) && Arrays.equals(this.parameters, parameters);
+        }
+
+    }
+
+}
@@ -0,0 +1,222 @@
+package org.valross.constantine;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.invoke.MethodType;
+import java.lang.module.ModuleReader;
+import java.lang.module.ResolvedModule;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.net.JarURLConnection;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import java.util.stream.Stream;
+
+/// Validates constant types ahead of time (e.g. at startup), in parallel.
+///
+/// Problems with a constant type normally surface only when a constant of that type is first described or built.
+/// Validating types up front reports every problem with every type at once, rather than the first one found.
+///
+/// Validating a type also primes every per-class cache used to deconstruct, describe and re-build its constants
+/// (the type's verdict, record accessors, companion, canonical constructor or factory handle and signature),
+/// so the first real use of the type does no reflection or lookups.
+///
+/// Only concrete classes implementing [Constant] are checked; any other classes given (or found) are ignored.
+/// The canonical constructor (or factory) of a class is checked if its canonical parameters can be known
+/// without an instance, i.e. for records and classes with a [Companion].
+public final class Warmup {
+
+    private Warmup() {
+    }
+
+    /// Validates constant types on the common fork-join pool.
+    ///
+    /// @param types The types to validate
+    /// @return Every problem found
+    public static Report validate(Collection<? extends Class<?>> types) {
+        return validate(ForkJoinPool.commonPool(), types);
+    }
+
+    /// Validates constant types on a fork-join pool.
+    ///
+    /// @param pool  The pool to validate on
+    /// @param types The types to validate
+    /// @return Every problem found
+    public static Report validate(ForkJoinPool pool, Collection<? extends Class<?>> types) {
+        final List<Class<?>> constants = types.stream().filter(Warmup::isConstantType)
+            .<Class<?>>map(type -> type).distinct().toList();
+        final List<Violation> violations = pool.submit(() -> constants.parallelStream().map(Warmup::check)
+            .flatMap(List::stream).toList()).join();
+        return new Report(constants.size(), violations);
+    }
+
+    /// Validates every constant type in a package (and its sub-packages) on the class path.
+    ///
+    /// @param packageName The package, e.g. `org.example.data`
+    /// @param loader      The loader to find (and load) classes with
+    /// @return Every problem found, including classes that could not be loaded
+    public static Report validatePackage(String packageName, ClassLoader loader) throws IOException {
+        final String path = packageName.replace('.', '/');
+        final Set<String> names = new TreeSet<>();
+        final Enumeration<URL> roots = loader.getResources(path);
+        while (roots.hasMoreElements()) {
+            final URL root = roots.nextElement();
+            switch (root.getProtocol()) {
+                case "file" -> {
+                    final Path directory;
+                    try {
+                        directory = Path.of(root.toURI());
+                    } catch (URISyntaxException ex) {
+                        throw new IOException(ex);
+                    }
+                    try (Stream<Path> files = Files.walk(directory)) {
+                        files.map(file -> path + '/' + directory.relativize(file).toString()
+                            .replace(File.separatorChar, '/')).forEach(names::add);
+                    }
+                }
+                case "jar" -> {
+                    final JarURLConnection connection = (JarURLConnection) root.openConnection();
+                    connection.setUseCaches(false);
+                    try (JarFile jar = connection.getJarFile()) {
+                        jar.stream().map(JarEntry::getName).filter(name -> name.startsWith(path + '/'))
+                            .forEach(names::add);
+                    }
+                }
+                default -> throw new IOException("Unable to scan " + root);
+            }
+        }
+        return load(names, loader);
+    }
+
+    /// Validates every constant type in a named module.
+    ///
+    /// @param module The module
+    /// @return Every problem found, including classes that could not be loaded
+    public static Report validateModule(Module module) throws IOException {
+        if (!module.isNamed() || module.getLayer() == null)
+            throw new IllegalArgumentException("Not a named module in a layer: " + module);
+        final ResolvedModule resolved = module.getLayer().configuration().findModule(module.getName())
+            .orElseThrow();
+        final Set<String> names = new TreeSet<>();
+        try (ModuleReader reader = resolved.reference().open(); Stream<String> resources = reader.list()) {
+            resources.forEach(names::add);
+        }
+        return load(names, module.getClassLoader());
+    }
+
+    private static Report load(Set<String> resources, ClassLoader loader) {
+        final List<Class<?>> types = new ArrayList<>();
+        final List<Violation> failures = new ArrayList<>();
+        for (String resource : resources) {
+            if (!resource.endsWith(".class") || resource.endsWith("module-info.class")
+                || resource.endsWith("package-info.class")) continue;
+            final String name = resource.substring(0, resource.length() - ".class".length()).replace('/', '.');
+            try {
+                types.add(Class.forName(name, false, loader));
+            } catch (ClassNotFoundException | LinkageError ex) {
+                failures.add(new Violation(name, "Unable to load: " + ex));
+            }
+        }
+        final Report report = validate(types);
+        if (failures.isEmpty()) return report;
+        final List<Violation> violations = new ArrayList<>(failures);
+        violations.addAll(report.violations());
+        return new Report(report.checked(), violations);
+    }
+
+    private static boolean isConstantType(Class<?> type) {
+        return Constant.class.isAssignableFrom(type) && !type.isInterface()
+            && !Modifier.isAbstract(type.getModifiers());
+    }
+
+    private static List<Violation> check(Class<?> type) {
+        final List<Violation> violations = new ArrayList<>(1);
+        try {
+            final Verdict verdict = Verdict.of(type);
+            if (!verdict.isConstant()) violations.add(new Violation(type.getName(), verdict.reason()));
+            final Companion<?> companion = Utilities.companion(type);
+            final Class<?>[] parameters;
+            if (companion != null) parameters = companion.canonicalParameters();
+            else if (type.isRecord()) parameters = RecordMetadata.of(type).parameters();
+            else return violations;
+            Utilities.signature(type, parameters);
+            if (Canonical.class.isAssignableFrom(type)) {
+                final String factory = factoryName(type, parameters);
+                if (factory == null) violations.add(new Violation(type.getName(),
+                    "Missing canonical factory: " + MethodType.methodType(type, parameters)));
+                else if (verdict.hasCanonicalFactory(factory, parameters))
+                    Utilities.factory(Utilities.lookupIn(type), type, factory, MethodType.methodType(type,
+                        parameters));
+                else violations.add(new Violation(type.getName(), "Inaccessible canonical factory: " + factory
+                        + MethodType.methodType(type, parameters)));
+            } else if (!verdict.hasCanonicalConstructor(parameters))
+                violations.add(new Violation(type.getName(), "Missing canonical constructor: "
+                    + MethodType.methodType(void.class, parameters)));
+            else Utilities.factory(Utilities.lookupIn(type), type, null, MethodType.methodType(void.class,
+                    parameters));
+        } catch (Throwable ex) {
+            if (ex instanceof VirtualMachineError error && !(ex instanceof StackOverflowError)) throw error;
+            violations.add(new Violation(type.getName(), ex.toString()));
+        }
+        return violations;
+    }
+
+    /// The factory name of a canonical type is chosen by its instances, so any public static method
+    /// producing the type from its canonical parameters is taken to be the factory.
+    private static String factoryName(Class<?> type, Class<?>[] parameters) {
+        final String expected = "valueOf";
+        String found = null;
+        for (Method method : type.getMethods()) {
+            if (!Modifier.isStatic(method.getModifiers()) || method.getReturnType() != type) continue;
+            if (!Arrays.equals(method.getParameterTypes(), parameters)) continue;
+            if (method.getName().equals(expected)) return expected;
+            found = method.getName();
+        }
+        return found;
+    }
+
+    /// The result of validating a set of types.
+    ///
+    /// @param checked    The number of constant types checked
+    /// @param violations Every problem found
+    public record Report(int checked, List<Violation> violations) {
+
+        public Report {
+            violations = List.copyOf(violations);
+        }
+
+        /// @return Whether every type checked is valid
+        public boolean isValid() {
+            return violations.isEmpty();
+        }
+
+        @Override
+        public String toString() {
+            final StringBuilder builder = new StringBuilder().append(checked).append(" constant types checked, ")
+                .append(violations.size()).append(" problems");
+            for (Violation violation : violations) builder.append("\n\t").append(violation);
+            return builder.toString();
+        }
+
+    }
+
+    /// A problem with a type.
+    ///
+    /// @param type   The name of the type
+    /// @param reason What is wrong with it
+    public record Violation(String type, String reason) {
+
+        @Override
+        public String toString() {
+            return type + ": " + reason;
+        }
+
+    }
+
+}
@@ -0,0 +1,137 @@
+package org.valross.constantine;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.lang.constant.Constable;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+public class CodecTest {
+
+    @Test
+    public void roundTrip() throws Throwable {
+        final ByteBuffer buffer = ByteBuffer.allocate(4096);
+        final ConstantWriter writer = new ConstantWriter(buffer);
+        final ConstantTest.All all = new ConstantTest.All("A", -1, true, 'c', 4.0F, 5.0, Long.MIN_VALUE, (short) -7,
+            (byte) 8);
+        final Pair pair = new Pair(new ConstantTest.Blob("x", 1), new ConstantTest.Blob("x", 1));
+        writer.write(all);
+        writer.write(pair);
+        writer.write(new Array("a", null, 3, new Array()));
+        writer.write(new IntArray(1, 2, 3));
+        writer.write(Thread.State.RUNNABLE);
+        writer.write(new ConstantTest.Colour("blue"));
+        writer.write(ConstantMap.of().with("k", ConstantSet.of(1, 2)));
+        buffer.flip();
+        final ConstantReader reader = new ConstantReader(buffer);
+        assert reader.read().equals(all);
+        final Pair remade = (Pair) reader.read();
+        assert remade.equals(pair);
+        assert remade.left() == remade.right();
+        assert reader.read().equals(new Array("a", null, 3, new Array()));
+        assert reader.read().equals(new IntArray(1, 2, 3));
+        assert reader.read() == Thread.State.RUNNABLE;
+        assert reader.read() == new ConstantTest.Colour("blue").intern();
+        assert reader.read().equals(java.util.Map.of("k", java.util.Set.of(1, 2)));
+        assert !reader.hasNext();
+    }
+
+    @Test
+    public void channels() throws Throwable {
+        final ByteArrayOutputStream output = new ByteArrayOutputStream();
+        final ConstantWriter writer = new ConstantWriter(Channels.newChannel(output), 16);
+        final Constable[] values = new Constable[5000];
+        for (int i = 0; i < values.length; i++) values[i] = new ConstantTest.Blob("blob " + (i % 10), i);
+        writer.write(new Array(values));
+        writer.write("a long string that does not fit in the buffer all at once");
+        writer.flush();
+        final ConstantReader reader = new ConstantReader(Channels.newChannel(new ByteArrayInputStream(
+            output.toByteArray())), 16, CodecTest.class.getClassLoader());
+        final List<Object> elements = new ArrayList<>();
+        assert reader.readArray(elements::add) == values.length;
+        assert elements.equals(List.of(values));
+        assert reader.read().equals("a long string that does not fit in the buffer all at once");
+        assert !reader.hasNext();
+    }
+
+    @Test
+    public void deepGraphs() throws Throwable {
+        Node chain = null;
+        for (int i = 0; i < 100_000; i++) chain = new Node(chain, i % 3); // repeats no subtree, so nothing is shared
+        final ByteArrayOutputStream output = new ByteArrayOutputStream();
+        final ConstantWriter writer = new ConstantWriter(Channels.newChannel(output));
+        writer.write(chain);
+        writer.write(new Array(chain, chain));
+        writer.flush();
+        final ConstantReader reader = new ConstantReader(Channels.newChannel(new ByteArrayInputStream(
+            output.toByteArray())));
+        Node read = (Node) reader.read();
+        final Array pair = (Array) reader.read();
+        assert pair.get(0) == read && pair.get(1) == read; // back-references to the whole chain
+        int length = 0;
+        for (Node original = chain; original != null; original = original.next(), read = read.next(), length++)
+            assert read != null && read.value() == original.value();
+        assert read == null && length == 100_000;
+    }
+
+    @Test
+    public void foreignTypes() throws Throwable {
+        final ByteBuffer buffer = ByteBuffer.allocate(256);
+        new ConstantWriter(buffer).write(new Safe("payload"));
+        buffer.flip();
+        final byte[] bytes = new byte[buffer.remaining()];
+        buffer.get(bytes);
+        final String encoded = new String(bytes, StandardCharsets.ISO_8859_1)
+            .replace("CodecTest$Safe", "CodecTest$Evil"); // same length, so the encoding stays well-formed
+        final ConstantReader reader = new ConstantReader(ByteBuffer.wrap(encoded.getBytes(StandardCharsets.ISO_8859_1)));
+        try {
+            reader.read();
+            assert false : "A non-constant type was resolved";
+        } catch (ConstantConstructionError expected) {
+            assert !Evil.created;
+        }
+        final String other = new String(bytes, StandardCharsets.ISO_8859_1)
+            .replace("(Ljava/lang/String;)V", "(Ljava/lang/Object;)V"); // a constructor that is not canonical
+        try {
+            new ConstantReader(ByteBuffer.wrap(other.getBytes(StandardCharsets.ISO_8859_1))).read();
+            assert false : "A non-canonical constructor was used";
+        } catch (ConstantConstructionError expected) {
+            assert !Safe.widened;
+        }
+    }
+
+    public record Pair(ConstantTest.Blob left, ConstantTest.Blob right) implements RecordConstant {
+
+    }
+
+    public record Node(Node next, int value) implements RecordConstant {
+
+    }
+
+    public record Safe(String value) implements RecordConstant {
+
+        static boolean widened;
+
+        private Safe(Object value) {
+            this(String.valueOf(value));
+            widened = true;
+        }
+
+    }
+
+    public record Evil(String value) {
+
+        static boolean created;
+
+        public Evil {
+            created = true;
+        }
+
+    }
+
+}
@@ -0,0 +1,57 @@
+package org.valross.constantine;
+
+import org.junit.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+public class ConstantStoreTest {
+
+    @Test
+    public void indexedAndKeyed() throws Throwable {
+        final Path path = Files.createTempFile("constants", ".store");
+        try {
+            final List<ConstantTest.Blob> blobs = new ArrayList<>();
+            for (int i = 0; i < 5000; i++) blobs.add(new ConstantTest.Blob("blob " + i, i));
+            ConstantStore.write(path, blobs, ConstantTest.Blob::name);
+            final ConstantStore<ConstantTest.Blob> store = ConstantStore.open(path, ConstantTest.Blob.class,
+                ConstantTest.Blob::name);
+            assert store.size() == blobs.size();
+            assert store.get(0).equals(blobs.get(0));
+            assert store.get(4321).equals(blobs.get(4321));
+            assert store.find("blob 1234").equals(blobs.get(1234));
+            assert store.find("blob 5000") == null;
+            assert store.equals(blobs);
+            store.close();
+            store.close();
+            try {
+                store.get(0);
+                assert false : "A closed store was read";
+            } catch (IllegalStateException expected) {
+            }
+        } finally {
+            Files.deleteIfExists(path);
+        }
+    }
+
+    @Test
+    public void unkeyed() throws Throwable {
+        final Path path = Files.createTempFile("constants", ".store");
+        try {
+            ConstantStore.write(path, List.of(new Array("a", 1), new IntArray(1, 2)));
+            try (ConstantStore<Constant> store = ConstantStore.open(path, Constant.class)) {
+                assert store.get(0).equals(new Array("a", 1));
+                assert store.get(1).equals(new IntArray(1, 2));
+            }
+            ConstantStore.write(path, List.of());
+            try (ConstantStore<Constant> store = ConstantStore.open(path, Constant.class)) {
+                assert store.isEmpty();
+            }
+        } finally {
+            Files.deleteIfExists(path);
+        }
+    }
+
+}
@@ -1,13 +1,38 @@
 package org.valross.constantine;
 
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
 import org.junit.Test;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InvalidObjectException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serial;
 import java.lang.constant.Constable;
 import java.lang.constant.ConstantDesc;
+import java.lang.constant.ConstantDescs;
 import java.lang.constant.DynamicConstantDesc;
+import java.lang.constant.MethodTypeDesc;
 import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.RandomAccess;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
 
 public class ConstantTest {
 
@@ -20,6 +45,16 @@ public class ConstantTest {
         assert !Constant.isConstant(ConstantTest.class);
     }
 
+    @Test
+    public void isConstantRecursive() {
+        assert Constant.isConstant(Link.class);
+        assert Constant.isConstant(Link.class); // cached
+        assert !Constant.isConstant(BadLink.class);
+        assert new Link("a", null).validate();
+        assert Companion.of(Forged.class) != null && !Constant.isConstant(Forged.class); // a companion proves nothing
+        assert !Constant.isConstant(Bag.class); // only the JDK's skeletal collections may be extended
+    }
+
     @Test
     public void describe() {
         assert !Constant.describe(Day.class).isPrimitive();
@@ -51,6 +86,536 @@ public class ConstantTest {
         assert remade instanceof Array array && array.equals(constant);
     }
 
+    @Test
+    public void arrayContains() {
+        final Array small = new Array("a", "a", null);
+        assert small.contains("a");
+        assert small.contains(null);
+        assert !small.contains("b");
+        final Constable[] values = new Constable[100];
+        for (int i = 0; i < values.length; i++) values[i] = i % 10;
+        values[50] = null;
+        final Array large = new Array(values);
+        assert large.contains(9);
+        assert large.contains(null);
+        assert !large.contains(10);
+        assert large.containsAll(List.of(1, 2, 3));
+        assert !large.containsAll(List.of(1, 2, 30));
+        assert large.hashCode() == large.hashCode();
+        assert large.hashCode() == new Array(values).hashCode();
+        assert new Array().hashCode() == List.of().hashCode();
+    }
+
+    @Test
+    public void arrayViews() throws Throwable {
+        final Constable[] values = new Constable[100];
+        for (int i = 0; i < values.length; i++) values[i] = i;
+        final Array array = new Array(values);
+        assert array instanceof RandomAccess;
+        assert Constant.isConstant(Array.class) && array.validate();
+        assert array.get(42).equals(42);
+        assert array.indexOf(42) == 42 && array.indexOf(100) == -1;
+        final Array slice = array.slice(10, 20);
+        assert slice.size() == 10 && slice.get(0).equals(10) && slice.indexOf(15) == 5;
+        assert slice.equals(List.of(10, 11, 12, 13, 14, 15, 16, 17, 18, 19));
+        assert slice.subList(2, 4).equals(new Array(12, 13));
+        final Array joined = slice.concat(new Array("a"), array.slice(90, 100));
+        assert joined.size() == 21 && joined.get(10).equals("a") && joined.get(11).equals(90);
+        assert joined.indexOf(99) == 20 && joined.contains("a") && !joined.contains(50);
+        assert joined.slice(8, 13).equals(new Array(18, 19, "a", 90, 91));
+        assert joined.hashCode() == new Array(joined.serial()).hashCode();
+        final ConstantDesc desc = joined.describeConstable().orElseThrow();
+        assert desc.equals(new Array(joined.serial()).describeConstable().orElseThrow());
+        assert desc.resolveConstantDesc(MethodHandles.lookup()).equals(joined);
+        try {
+            slice.set(0, 1);
+            assert false;
+        } catch (UnsupportedOperationException expected) {
+        }
+    }
+
+    @Test
+    public void arrayBuilder() throws Throwable {
+        final ArrayBuilder builder = new ArrayBuilder(4);
+        builder.add("a").addAll("b", null).addAll(List.of(1, 2, 3));
+        assert builder.size() == 6;
+        final Array array = builder.constant();
+        assert array.equals(java.util.Arrays.asList("a", "b", null, 1, 2, 3)) && builder.constant() == array;
+        try {
+            builder.add("d");
+            assert false;
+        } catch (IllegalStateException expected) {
+        }
+        final ArrayBuilder exact = new ArrayBuilder(2).addAll(1, 2);
+        assert exact.constant().equals(new Array(1, 2));
+        final Array collected = IntStream.range(0, 100_000).boxed().parallel()
+            .collect(ArrayBuilder.collector());
+        assert collected.size() == 100_000 && collected.get(99_999).equals(99_999) && collected.indexOf(500) == 500;
+        assert collected.describeConstable().orElseThrow().resolveConstantDesc(MethodHandles.lookup())
+            .equals(collected);
+        assert Stream.<Constable>of().collect(ArrayBuilder.collector()).isEmpty();
+    }
+
+    @Test
+    public void lazyConstant() throws Throwable {
+        final AtomicInteger calls = new AtomicInteger();
+        final LazyConstant<Blob> lazy = LazyConstant.of(() -> {
+            calls.incrementAndGet();
+            return new Blob("lazy", 1);
+        });
+        assert !lazy.isResolved() && calls.get() == 0;
+        IntStream.range(0, 1000).parallel().forEach(i -> {
+            assert lazy.get().equals(new Blob("lazy", 1));
+        });
+        assert calls.get() == 1 && lazy.isResolved() && lazy.constant() == lazy.get();
+        assert lazy.describeConstable().orElseThrow().equals(lazy.get().describeConstable().orElseThrow());
+        final ConstantDesc desc = new Blob("described", 2).describeConstable().orElseThrow();
+        final LazyConstant<Blob> described = LazyConstant.of(desc, MethodHandles.lookup());
+        assert described.describeConstable().orElseThrow() == desc && !described.isResolved();
+        assert described.get().equals(new Blob("described", 2)) && described.get() == described.get();
+        final LazyConstant<String> nothing = LazyConstant.of(() -> null);
+        assert nothing.get() == null && nothing.isResolved();
+        assert nothing.describeConstable().orElseThrow().equals(ConstantDescs.NULL);
+        final List<LazyConstant<String>> self = new ArrayList<>();
+        self.add(LazyConstant.of(() -> self.getFirst().get() + "!"));
+        try {
+            self.getFirst().get();
+            assert false : "A lazy constant computed itself";
+        } catch (ConstantConstructionError expected) {
+            assert !self.getFirst().isResolved();
+        }
+    }
+
+    @Test
+    public void constantMap() throws Throwable {
+        ConstantMap<Integer, String> map = ConstantMap.of();
+        for (int i = 0; i < 1000; i++) map = map.with(i, "v" + i);
+        assert map.size() == 1000 && map.get(500).equals("v500") && map.get(1000) == null;
+        final ConstantMap<Integer, String> smaller = map.without(500).with(1, "one");
+        assert smaller.size() == 999 && !smaller.containsKey(500) && smaller.get(1).equals("one");
+        assert map.get(1).equals("v1") && map.containsKey(500);
+        assert map.without(5000) == map && map.with(2, map.get(2)) == map;
+        final Map<Integer, String> copy = new HashMap<>(map);
+        assert copy.equals(map) && map.equals(copy) && map.hashCode() == copy.hashCode();
+        assert Constant.isConstant(ConstantMap.class) && map.validate();
+        final ConstantDesc desc = smaller.describeConstable().orElseThrow();
+        assert desc.resolveConstantDesc(MethodHandles.lookup()).equals(smaller);
+        ConstantMap<Collider, String> collisions = ConstantMap.of(Map.of(new Collider("a"), "a",
+            new Collider("b"), "b", new Collider("c"), "c"));
+        assert collisions.get(new Collider("b")).equals("b") && collisions.size() == 3;
+        collisions = collisions.with(new Collider("d"), "d").without(new Collider("a")).without(new Collider("c"));
+        assert collisions.size() == 2 && collisions.get(new Collider("d")).equals("d");
+        assert collisions.equals(Map.of(new Collider("b"), "b", new Collider("d"), "d"));
+        try {
+            map.put(1, "x");
+            assert false;
+        } catch (UnsupportedOperationException expected) {
+        }
+    }
+
+    @Test
+    public void constantSet() throws Throwable {
+        final ConstantSet<String> set = ConstantSet.of("a", "b", "c");
+        assert set.size() == 3 && set.contains("b") && !set.contains("d");
+        assert set.with("d").size() == 4 && set.without("a").equals(Set.of("b", "c"));
+        assert set.with("a") == set && set.hashCode() == Set.of("a", "b", "c").hashCode();
+        final ConstantDesc desc = set.describeConstable().orElseThrow();
+        assert desc.resolveConstantDesc(MethodHandles.lookup()).equals(set);
+        assert Constant.isConstant(ConstantSet.class) && Constant.isConstant(Array.class);
+    }
+
+    @Test
+    public void arrayIteration() {
+        final Constable[] values = new Constable[1000];
+        for (int i = 0; i < values.length; i++) values[i] = i;
+        final Array array = new Array(values);
+        int index = 0;
+        for (Constable constable : array) assert constable.equals(index++);
+        assert index == values.length;
+        final Spliterator<Constable> spliterator = array.spliterator();
+        assert spliterator.hasCharacteristics(Spliterator.SIZED | Spliterator.SUBSIZED | Spliterator.IMMUTABLE
+            | Spliterator.ORDERED);
+        assert spliterator.getExactSizeIfKnown() == values.length;
+        assert array.parallelStream().mapToInt(value -> (Integer) value).sum() == 999 * 1000 / 2;
+        final int[] count = new int[1];
+        array.forEach(value -> count[0]++);
+        assert count[0] == values.length;
+    }
+
+    @Test
+    public void packedArrays() throws Throwable {
+        final MethodHandles.Lookup lookup = MethodHandles.lookup();
+        final int[] ints = new int[100000];
+        for (int i = 0; i < ints.length; i++) ints[i] = i * 31;
+        final IntArray array = new IntArray(ints);
+        final ConstantDesc desc = array.describeConstable().orElseThrow();
+        assert desc instanceof DynamicConstantDesc<?> dynamic && dynamic.bootstrapArgs().length == 9;
+        assert desc.resolveConstantDesc(lookup).equals(array);
+        assert array.stream().sum() == java.util.Arrays.stream(ints).sum();
+        final Constant[] constants = {new LongArray(1L, Long.MIN_VALUE), new DoubleArray(0.5, Double.NaN),
+            new ByteArray((byte) -1, (byte) 2), new IntArray()};
+        for (Constant constant : constants)
+            assert constant.describeConstable().orElseThrow().resolveConstantDesc(lookup).equals(constant);
+        final Numbers numbers = new Numbers(new int[] {1, 2, 3}, "x");
+        assert numbers.serial()[0] instanceof IntArray;
+        assert numbers.describeConstable().orElseThrow().resolveConstantDesc(lookup).equals(numbers);
+    }
+
+    @Test
+    public void canonicalPool() throws Throwable {
+        final Colour red = new Colour("red").intern();
+        assert new Colour("red").intern() == red;
+        assert new Colour("red") != red;
+        final Object remade = red.describeConstable().orElseThrow().resolveConstantDesc(MethodHandles.lookup());
+        assert remade == red;
+        final Canonical.Pool<String> pool = new Canonical.Pool<>(16);
+        final String first = new String("a");
+        assert pool.intern(first) == first;
+        assert pool.intern(new String("a")) == first;
+        assert pool.hits() == 1 && pool.misses() == 1;
+        for (int i = 0; i < 1000; i++) pool.intern("value" + i);
+        assert pool.size() <= 32;
+    }
+
+    @Test
+    public void bootstrapRepeated() throws Throwable {
+        final MethodHandles.Lookup lookup = MethodHandles.lookup();
+        final Arrays constant = new Arrays(new String[] {"a", "b"}, true);
+        final ConstantDesc desc = constant.describeConstable().orElseThrow();
+        for (int i = 0; i < 3; i++) assert desc.resolveConstantDesc(lookup).equals(constant);
+        final ConstantDesc other = new Arrays(new String[] {"c"}, false).describeConstable().orElseThrow();
+        assert ((Arrays) other.resolveConstantDesc(lookup)).strings()[0].equals("c");
+    }
+
+    @Test
+    public void companion() throws Throwable {
+        final Pixel pixel = new Pixel(1, 2);
+        assert Companion.of(Pixel.class) instanceof Pixel_Companion;
+        assert Companion.of(Day.class) == null;
+        assert pixel.serial()[1].equals(2);
+        assert pixel.canonicalParameters().length == 2;
+        assert Constant.isConstant(Pixel.class);
+        assert pixel.describeConstable().orElseThrow().resolveConstantDesc(MethodHandles.lookup()).equals(pixel);
+    }
+
+    @Test
+    public void bundle() throws Throwable {
+        final Blob blob = new Blob("hello", 5);
+        final ConstantBundle bundle = new ConstantBundle("org.valross.constantine.ConstantTest$Bundle");
+        bundle.add("blob", blob)
+            .add("pair", new CodecTest.Pair(blob, new Blob("other", 6)))
+            .add("numbers", new IntArray(1, 2, 3))
+            .add("array", new Array("a", null, 1.5))
+            .add("answer", 42L)
+            .add("name", "Constantine");
+        final Class<?> holder = bundle.define(MethodHandles.lookup());
+        final Object first = holder.getMethod("blob").invoke(null);
+        assert first.equals(blob);
+        assert holder.getMethod("blob").invoke(null) == first;
+        assert ((CodecTest.Pair) holder.getMethod("pair").invoke(null)).left() == first;
+        assert holder.getMethod("numbers").invoke(null).equals(new IntArray(1, 2, 3));
+        assert holder.getMethod("array").invoke(null).equals(new Array("a", null, 1.5));
+        assert holder.getMethod("answer").invoke(null).equals(42L);
+        assert holder.getMethod("name").invoke(null).equals("Constantine");
+    }
+
+    @Test
+    public void bundleLimits() {
+        final Constable[] ones = new Constable[70000];
+        java.util.Arrays.fill(ones, 1);
+        try {
+            new ConstantBundle("x.Holder").add("big", new Array(ones)).toByteArray();
+            assert false : "A constant with too many bootstrap arguments was emitted";
+        } catch (ConstantDeconstructionError expected) {
+        }
+        try {
+            new ConstantBundle("x.Holder").add("long", "\u00e9".repeat(40000)).toByteArray();
+            assert false : "A string too long for the constant pool was emitted";
+        } catch (ConstantDeconstructionError expected) {
+        }
+        assert new ConstantBundle("x.Holder").add("long", "\u00e9".repeat(30000)).toByteArray().length > 60000;
+    }
+
+    @Test
+    public void describedOnce() throws Throwable {
+        final Blob blob = new Blob("shared", 1);
+        final ConstantDesc desc = blob.describeConstable().orElseThrow();
+        assert blob.describeConstable().orElseThrow() == desc;
+        assert new Blob("shared", 1).describeConstable().orElseThrow() != desc;
+        final CodecTest.Pair pair = new CodecTest.Pair(blob, blob);
+        final DynamicConstantDesc<?> described = (DynamicConstantDesc<?>) pair.describeConstable().orElseThrow();
+        assert described.bootstrapArgs()[1] == desc && described.bootstrapArgs()[2] == desc;
+        assert pair.describeConstable().orElseThrow() == described;
+        final Array array = new Array(blob, pair);
+        assert array.describeConstable().orElseThrow() == array.describeConstable().orElseThrow();
+        assert described.resolveConstantDesc(MethodHandles.lookup()).equals(pair);
+    }
+
+    @Test
+    public void deduplicate() {
+        final Deduplicator deduplicator = new Deduplicator();
+        final CodecTest.Pair pair = new CodecTest.Pair(new Blob("x", 1), new Blob("x", 1));
+        final CodecTest.Pair unique = deduplicator.deduplicate(pair);
+        assert unique.equals(pair) && unique.left() == unique.right();
+        final Array array = deduplicator.deduplicate(new Array(new Blob("x", 1), new Array("a", new String("a"))));
+        assert array.get(0) == unique.left();
+        assert ((Array) array.get(1)).get(0) == ((Array) array.get(1)).get(1);
+        assert deduplicator.deduplicate(new CodecTest.Pair(new Blob("x", 1), new Blob("x", 1))) == unique;
+        Link first = null, second = null;
+        for (int i = 0; i < 100_000; i++) {
+            first = new Link("link", first);
+            second = new Link("link", second);
+        }
+        assert deduplicator.deduplicate(first) == deduplicator.deduplicate(second);
+        assert deduplicator.size() >= 100_000;
+    }
+
+    @Test
+    public void patch() throws Throwable {
+        final Constable[] rows = new Constable[1000];
+        for (int i = 0; i < rows.length; i++) rows[i] = new Blob("row", i);
+        final Arrays old = new Arrays(rows, true);
+        final Constable[] changed = rows.clone();
+        changed[10] = new Blob("row", -10);
+        final Arrays edited = new Arrays(changed, true);
+        final Patch replace = Patch.diff(old, edited);
+        assert replace.edits().size() == 1 : replace;
+        assert replace.edits().getFirst() instanceof Patch.Replace(IntArray path, Constable value)
+            && path.equals(new IntArray(0, 10, 1)) && value.equals(-10) : replace;
+        final Arrays replaced = replace.apply(old);
+        assert replaced.equals(edited) && replaced.b();
+        final Constable[] inserted = new Constable[1001];
+        System.arraycopy(rows, 0, inserted, 0, 500);
+        inserted[500] = new Blob("new", 0);
+        System.arraycopy(rows, 500, inserted, 501, 500);
+        final Patch splice = Patch.diff(old, new Arrays(inserted, false));
+        assert splice.edits().size() == 2 : splice; // the splice, and the flag
+        final Arrays spliced = splice.apply(old);
+        assert spliced.equals(new Arrays(inserted, false)) && spliced.strings()[0] == rows[0];
+        assert spliced.strings()[999] == rows[998];
+        assert Patch.diff(old, new Arrays(rows.clone(), true)).isEmpty();
+        assert splice.describeConstable().orElseThrow().resolveConstantDesc(MethodHandles.lookup()).equals(splice);
+        Link first = null, second = null;
+        for (int i = 0; i < 10_000; i++) {
+            first = new Link(i == 0 ? "first" : "link", first);
+            second = new Link(i == 0 ? "second" : "link", second);
+        }
+        final Link patched = Patch.diff(first, second).apply(first);
+        Link link = patched;
+        while (link.next != null) link = link.next;
+        assert link.name.equals("second");
+    }
+
+    @Test
+    public void fingerprint() throws Throwable {
+        final CodecTest.Pair pair = new CodecTest.Pair(new Blob("a", 1), new Blob("b", 2));
+        final Fingerprint fingerprint = Fingerprint.of(pair);
+        assert Fingerprint.of(pair) == fingerprint; // remembered
+        assert Fingerprint.of(new CodecTest.Pair(new Blob("a", 1), new Blob("b", 2))).equals(fingerprint);
+        assert !Fingerprint.of(new CodecTest.Pair(new Blob("a", 1), new Blob("b", 3))).equals(fingerprint);
+        assert !Fingerprint.of(new CodecTest.Pair(new Blob("b", 2), new Blob("a", 1))).equals(fingerprint);
+        assert Fingerprint.parse(fingerprint.toString()).equals(fingerprint) && fingerprint.toString().length() == 32;
+        assert Fingerprint.of(new Blob("a", 1)).toString().equals("ff0b1cad4aa4ffa4bb56ee0af6a22881"); // stable
+        final Array array = new Array(1, "two", 3.0, null, new Blob("a", 1));
+        assert Fingerprint.of(array.slice(1, 5)).equals(Fingerprint.of(new Array("two", 3.0, null, new Blob("a", 1))));
+        assert Fingerprint.of(array.slice(0, 2).concat(array.slice(2, 5))).equals(Fingerprint.of(array));
+        assert !Fingerprint.of(new Array(1)).equals(Fingerprint.of(new Array(1L)));
+        ConstantSet<Collider> set = ConstantSet.of(), reversed = ConstantSet.of();
+        for (int i = 0; i < 100; i++) {
+            set = set.with(new Collider("c" + i));
+            reversed = reversed.with(new Collider("c" + (99 - i)));
+        }
+        assert Fingerprint.of(set).equals(Fingerprint.of(reversed));
+        assert Fingerprint.of(new IntArray(1, 2)).equals(Fingerprint.of(new IntArray(1, 2)));
+        assert !Fingerprint.of(new IntArray(1, 2)).equals(Fingerprint.of(new LongArray(1, 2)));
+        assert !Fingerprint.of(List.class).equals(Fingerprint.of(java.awt.List.class)); // same simple name
+        final MethodType returnsInt = MethodType.methodType(int.class);
+        assert Fingerprint.of(MethodHandles.lookup().findVirtual(String.class, "length", returnsInt))
+            .equals(Fingerprint.of(MethodHandles.lookup().findVirtual(String.class, "length", returnsInt)));
+        assert !Fingerprint.of(MethodHandles.lookup().findVirtual(String.class, "length", returnsInt))
+            .equals(Fingerprint.of(MethodHandles.lookup().findVirtual(String.class, "hashCode", returnsInt)));
+        try {
+            Fingerprint.of(Optional::empty);
+            assert false : "An undescribable value was fingerprinted";
+        } catch (ConstantDeconstructionError expected) {
+        }
+    }
+
+    @Test
+    public void serialization() throws Throwable {
+        final Colour colour = new Colour("serialized").intern();
+        final Array array = new Array(colour, new Colour("serialized"), "text", new Blob("a", 1));
+        final ConstantMap<String, Colour> map = ConstantMap.<String, Colour>of().with("key", colour);
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream output = new ObjectOutputStream(bytes)) {
+            output.writeObject(array);
+            output.writeObject(map);
+            output.writeObject(array.slice(2, 3));
+        }
+        try (ObjectInputStream input = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+            final Array read = (Array) input.readObject();
+            assert read.equals(array) && read.get(0) == colour && read.get(1) == colour; // interned
+            final Object readMap = input.readObject();
+            assert readMap instanceof ConstantMap<?, ?> copy && copy.equals(map) && copy.get("key") == colour;
+            assert input.readObject().equals(new Array("text"));
+        }
+        bytes.reset();
+        try (ObjectOutputStream output = new ObjectOutputStream(bytes)) {
+            output.writeObject(ConstantProxy.of(new BadLink(null)));
+        }
+        try (ObjectInputStream input = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+            input.readObject();
+            assert false : "A non-constant type was rebuilt";
+        } catch (InvalidObjectException expected) {
+        }
+    }
+
+    @Test
+    public void warmup() throws Throwable {
+        final Warmup.Report report = Warmup.validate(List.of(Link.class, BadLink.class, Blob.class,
+            Colour.class, Array.class, String.class));
+        assert report.checked() == 5 : report;
+        assert report.violations().size() == 1 : report;
+        assert report.violations().getFirst().type().equals(BadLink.class.getName());
+        final Warmup.Report scanned = Warmup.validatePackage("org.valross.constantine", ConstantTest.class
+            .getClassLoader());
+        assert scanned.checked() > 10 : scanned;
+        assert scanned.violations().stream().anyMatch(violation -> violation.type()
+            .equals(BadLink.class.getName())) : scanned;
+        assert scanned.violations().stream().noneMatch(violation -> violation.type()
+            .equals(Blob.class.getName())) : scanned;
+    }
+
+    @Test
+    public void batches() {
+        final List<Constant> constants = new ArrayList<>();
+        for (int i = 0; i < 5000; i++) constants.add(new Blob("blob", i));
+        constants.add(new BadLink(null));
+        final var descriptions = Constant.describeAll(constants);
+        assert descriptions.size() == constants.size();
+        for (int i = 0; i < 5000; i++) assert descriptions.get(i).isSuccess();
+        assert !descriptions.get(5000).isSuccess() && descriptions.get(5000).error() != null;
+        final List<ConstantDesc> described = new ArrayList<>();
+        for (int i = 0; i < 5000; i++) described.add(descriptions.get(i).get());
+        described.add(DynamicConstantDesc.of(Constant.BOOTSTRAP_MAKE, MethodTypeDesc.of(ConstantDescs.CD_void,
+            ConstantDescs.CD_boolean), 1));
+        final var resolved = Constant.resolveAll(MethodHandles.lookup(), described.stream());
+        for (int i = 0; i < 5000; i++) assert resolved.get(i).get().equals(constants.get(i));
+        assert !resolved.get(5000).isSuccess() && resolved.get(5000).error() != null;
+    }
+
+    @Test
+    public void metrics() throws Throwable {
+        final Metrics.Snapshot before = Metrics.snapshot();
+        final Blob blob = new Blob("counted", 1);
+        blob.describeConstable().orElseThrow().resolveConstantDesc(MethodHandles.lookup());
+        assert Metrics.snapshot().equals(before) || Metrics.isEnabled(); // nothing is counted while disabled
+        final Path file = Files.createTempFile("constantine", ".jfr");
+        Metrics.enable();
+        try (Recording recording = new Recording()) {
+            recording.enable("org.valross.constantine.Bootstrap");
+            recording.enable("org.valross.constantine.Intern");
+            recording.start();
+            final Blob other = new Blob("counted", 2);
+            assert other.describeConstable().orElseThrow() == other.describeConstable().orElseThrow();
+            other.describeConstable().orElseThrow().resolveConstantDesc(MethodHandles.lookup());
+            final Colour interned = new Colour("metric").intern(); // held, so the pool cannot drop it
+            assert new Colour("metric").describeConstable().orElseThrow()
+                .resolveConstantDesc(MethodHandles.lookup()) == interned;
+            new ConstantConstructionError("counted");
+            recording.stop();
+            recording.dump(file);
+        } finally {
+            Metrics.disable();
+        }
+        final Metrics.Snapshot after = Metrics.snapshot();
+        assert after.bootstraps() - before.bootstraps() >= 2 : after;
+        assert after.descriptions() - before.descriptions() >= 3 && after.described() - before.described() >= 2;
+        assert after.serials() > before.serials() && after.errors() > before.errors() : after;
+        assert after.internHits() > before.internHits() && after.internMisses() > before.internMisses() : after;
+        final List<RecordedEvent> events = RecordingFile.readAllEvents(file);
+        Files.delete(file);
+        assert events.stream().anyMatch(event -> event.getEventType().getName()
+            .equals("org.valross.constantine.Bootstrap") && event.getClass("type").getName().equals(Blob.class.getName())
+            && event.getString("kind").equals("constructor")) : events;
+        assert events.stream().anyMatch(event -> event.getEventType().getName()
+            .equals("org.valross.constantine.Intern") && event.getBoolean("hit")) : events;
+        assert ManagementFactory.getPlatformMBeanServer().getAttribute(Metrics.register(), "Bootstraps")
+            .equals(after.bootstraps());
+    }
+
+    @Test
+    public void visitor() {
+        final StringBuilder builder = new StringBuilder();
+        final ConstantVisitor printer = new ConstantVisitor() {
+            @Override
+            public void enterConstant(Constant constant, int parts) {
+                builder.append(constant.getClass().getSimpleName()).append('(');
+            }
+
+            @Override
+            public void exitConstant(Constant constant) {
+                builder.append(')');
+            }
+
+            @Override
+            public void enterArray(Object array, int length) {
+                builder.append('[');
+            }
+
+            @Override
+            public void exitArray(Object array) {
+                builder.append(']');
+            }
+
+            @Override
+            public void visitInt(int value) {
+                builder.append(value).append(' ');
+            }
+
+            @Override
+            public void visitString(String value) {
+                builder.append(value).append(' ');
+            }
+
+            @Override
+            public void visitBoolean(boolean value) {
+                builder.append(value).append(' ');
+            }
+
+            @Override
+            public void visitNull() {
+                builder.append("null ");
+            }
+        };
+        ConstantVisitor.walk(new Array(new Blob("a", 1), null, new IntArray(2, 3)), printer);
+        assert builder.toString().equals("[Blob(a 1 )null [2 3 ]]") : builder;
+        builder.setLength(0);
+        ConstantVisitor.walk(new Arrays(new String[] {"x", "y"}, true), printer);
+        assert builder.toString().equals("Arrays([x y ]true )") : builder;
+        builder.setLength(0);
+        ConstantVisitor.walk(new Link("a", new Link("b", null)), printer);
+        assert builder.toString().equals("Link(a Link(b null ))") : builder;
+        builder.setLength(0);
+        ConstantVisitor.walk(new Masked("secret", 3), printer);
+        assert builder.toString().equals("Masked(3 )") : builder;
+        Chain chain = null;
+        for (int i = 0; i < 100_000; i++) chain = new Chain(i, chain);
+        final int[] depth = {0, 0};
+        ConstantVisitor.walk(chain, new ConstantVisitor() {
+            @Override
+            public void enterConstant(Constant constant, int parts) {
+                depth[1] = Math.max(depth[1], ++depth[0]);
+            }
+
+            @Override
+            public void exitConstant(Constant constant) {
+                depth[0]--;
+            }
+        });
+        assert depth[0] == 0 && depth[1] == 100_000;
+    }
+
     @Test
     public void serial() throws Throwable {
         final MethodHandles.Lookup lookup = MethodHandles.lookup();
@@ -121,6 +686,130 @@ public class ConstantTest {
         assert remade instanceof Arrays arrays && arrays.equals(constant);
     }
 
+    @Test
+    public void recordSerial() throws Throwable {
+        final Blob blob = new Blob("hello", 5);
+        final Constable[] serial = blob.serial();
+        assert serial.length == 2;
+        assert serial[0].equals("hello");
+        assert serial[1].equals(5);
+        assert serial != blob.serial();
+        final Constable[] nested = new Arrays(new String[] {"a", "b"}, true).serial();
+        assert nested[0] instanceof Array array && array.size() == 2;
+        final Class<?>[] parameters = blob.canonicalParameters();
+        parameters[0] = Object.class;
+        assert blob.canonicalParameters()[0] == String.class;
+    }
+
+    public static final class Link implements Constant {
+
+        public final String name;
+        public final Link next;
+
+        public Link(String name, Link next) {
+            this.name = name;
+            this.next = next;
+        }
+
+        @Override
+        public Constable[] serial() {
+            return new Constable[] {name, next};
+        }
+
+        @Override
+        public Class<?>[] canonicalParameters() {
+            return new Class[] {String.class, Link.class};
+        }
+
+    }
+
+    public static final class BadLink implements Constant {
+
+        public final BadLink next;
+        public Object value;
+
+        public BadLink(BadLink next) {
+            this.next = next;
+        }
+
+        @Override
+        public Constable[] serial() {
+            return new Constable[] {next};
+        }
+
+        @Override
+        public Class<?>[] canonicalParameters() {
+            return new Class[] {BadLink.class};
+        }
+
+    }
+
+    public record Masked(String hidden, int shown) implements RecordConstant {
+
+        @Override
+        public Constable[] serial() {
+            return new Constable[] {shown};
+        }
+
+        @Override
+        public Class<?>[] canonicalParameters() {
+            return new Class[] {int.class};
+        }
+
+        public Masked(int shown) {
+            this("", shown);
+        }
+
+    }
+
+    public record Chain(int value, Chain next) implements RecordConstant {
+
+    }
+
+    public static final class Bag extends ArrayList<Object> implements Constant {
+
+        @Override
+        public Constable[] serial() {
+            return new Constable[0];
+        }
+
+        @Override
+        public Class<?>[] canonicalParameters() {
+            return new Class[0];
+        }
+
+    }
+
+    public static final class Forged implements Constant {
+
+        public Object value;
+
+        @Override
+        public Constable[] serial() {
+            return new Constable[0];
+        }
+
+        @Override
+        public Class<?>[] canonicalParameters() {
+            return new Class[0];
+        }
+
+    }
+
+    public static final class Forged_Companion implements Companion<Forged> {
+
+        @Override
+        public Constable[] serial(Forged value) {
+            return new Constable[0];
+        }
+
+        @Override
+        public Class<?>[] canonicalParameters() {
+            return new Class[0];
+        }
+
+    }
+
     record Day(String name) implements Constant {
 
         @Override
@@ -158,6 +847,60 @@ public class ConstantTest {
 
     }
 
+    public record Collider(String name) implements RecordConstant {
+
+        @Override
+        public int hashCode() {
+            return 1;
+        }
+
+    }
+
+    public record Colour(String name) implements Canonical<Colour>, RecordConstant {
+
+        private static final Canonical.Pool<Colour> POOL = new Canonical.Pool<>();
+
+        public static Colour valueOf(String name) {
+            return new Colour(name);
+        }
+
+        @Override
+        public Colour intern() {
+            return POOL.intern(this);
+        }
+
+        @Override
+        public boolean validate() {
+            return Canonical.super.validate();
+        }
+
+        @Override
+        public Optional<? extends ConstantDesc> describeConstable() {
+            return Canonical.super.describeConstable();
+        }
+
+        @Serial
+        private Object writeReplace() {
+            return ConstantProxy.of(this);
+        }
+
+    }
+
+    public record Numbers(int[] values, String name) implements RecordConstant {
+
+        @Override
+        public boolean equals(Object object) {
+            if (!(object instanceof Numbers numbers)) return false;
+            return name.equals(numbers.name) && java.util.Arrays.equals(values, numbers.values);
+        }
+
+        @Override
+        public int hashCode() {
+            return java.util.Arrays.hashCode(values);
+        }
+
+    }
+
     public record Arrays(Constable[] strings, boolean b) implements RecordConstant {
 
         @Override
@@ -173,4 +916,23 @@ public class ConstantTest {
 
     }
 
-}
\ No newline at end of file
+}
+
+@ConstantType
+record Pixel(int x, int y) implements RecordConstant {
+
+}
+
+final class Pixel_Companion implements Companion<Pixel> {
+
+    @Override
+    public Constable[] serial(Pixel value) {
+        return new Constable[] {value.x(), value.y()};
+    }
+
+    @Override
+    public Class<?>[] canonicalParameters() {
+        return new Class<?>[] {int.class, int.class};
+    }
+
+}